@@ -33,6 +33,17 @@ public interface CryptoProvider {
      */
     boolean matches(String input, HashedPassword password);
 
+    /**
+     * Checks whether a {@link HashedPassword} created by this provider uses different parameters than the ones currently used for new hashes.
+     * Such passwords should be hashed again, once the plaintext is known (e.g. on login).
+     *
+     * @param password The hashed password.
+     * @return True if the password should be hashed again, false otherwise.
+     */
+    default boolean needsRehash(HashedPassword password) {
+        return false;
+    }
+
     /**
      * Gets the name of the algorithm.
      *
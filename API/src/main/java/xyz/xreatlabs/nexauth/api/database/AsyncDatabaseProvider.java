@@ -0,0 +1,27 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.api.database;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This interface provides the executor for the asynchronous methods of the database providers.
+ */
+public interface AsyncDatabaseProvider {
+
+    /**
+     * This method returns the executor, which runs the asynchronous operations.
+     * Implementations should override this with an executor dedicated to the database.
+     *
+     * @return The executor, the common pool by default.
+     */
+    default Executor getAsyncExecutor() {
+        return ForkJoinPool.commonPool();
+    }
+
+}
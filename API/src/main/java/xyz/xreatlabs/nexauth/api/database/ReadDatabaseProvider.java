@@ -8,13 +8,14 @@ package xyz.xreatlabs.nexauth.api.database;
 
 import java.util.Collection;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This interface is used to read from the database.
  *
  * @author kyngs
  */
-public interface ReadDatabaseProvider {
+public interface ReadDatabaseProvider extends AsyncDatabaseProvider {
 
     /**
      * This method finds a player by their name.
@@ -55,4 +56,80 @@ public interface ReadDatabaseProvider {
      */
     Collection<User> getByIP(String ip);
 
+    /**
+     * This method counts all players which used the specified IP.
+     * Implementations should override this, the default implementation fetches all the players.
+     *
+     * @param ip IP address.
+     * @return The amount of players which used the specified IP.
+     */
+    default int countByIP(String ip) {
+        return getByIP(ip).size();
+    }
+
+    /**
+     * This method finds a player by their name asynchronously.
+     *
+     * @param name The name of the player.
+     * @return A future completed with the player, or null if the player does not exist.
+     * @see #getByName(String)
+     */
+    default CompletableFuture<User> getByNameAsync(String name) {
+        return CompletableFuture.supplyAsync(() -> getByName(name), getAsyncExecutor());
+    }
+
+    /**
+     * This method finds a player by their UUID asynchronously.
+     *
+     * @param uuid The UUID of the player.
+     * @return A future completed with the player, or null if the player does not exist.
+     * @see #getByUUID(UUID)
+     */
+    default CompletableFuture<User> getByUUIDAsync(UUID uuid) {
+        return CompletableFuture.supplyAsync(() -> getByUUID(uuid), getAsyncExecutor());
+    }
+
+    /**
+     * This method finds a player by their premium UUID asynchronously.
+     *
+     * @param uuid The premium UUID of the player.
+     * @return A future completed with the player, or null if the player does not exist.
+     * @see #getByPremiumUUID(UUID)
+     */
+    default CompletableFuture<User> getByPremiumUUIDAsync(UUID uuid) {
+        return CompletableFuture.supplyAsync(() -> getByPremiumUUID(uuid), getAsyncExecutor());
+    }
+
+    /**
+     * This method fetches all players asynchronously. <b>Use this with caution.</b>
+     *
+     * @return A future completed with a collection of all players.
+     * @see #getAllUsers()
+     */
+    default CompletableFuture<Collection<User>> getAllUsersAsync() {
+        return CompletableFuture.supplyAsync(this::getAllUsers, getAsyncExecutor());
+    }
+
+    /**
+     * This method fetches all players which used the specified IP asynchronously.
+     *
+     * @param ip IP address.
+     * @return A future completed with a collection of all players which used the specified IP.
+     * @see #getByIP(String)
+     */
+    default CompletableFuture<Collection<User>> getByIPAsync(String ip) {
+        return CompletableFuture.supplyAsync(() -> getByIP(ip), getAsyncExecutor());
+    }
+
+    /**
+     * This method counts all players which used the specified IP asynchronously.
+     *
+     * @param ip IP address.
+     * @return A future completed with the amount of players which used the specified IP.
+     * @see #countByIP(String)
+     */
+    default CompletableFuture<Integer> countByIPAsync(String ip) {
+        return CompletableFuture.supplyAsync(() -> countByIP(ip), getAsyncExecutor());
+    }
+
 }
@@ -7,13 +7,14 @@
 package xyz.xreatlabs.nexauth.api.database;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This interface is used to write to the database.
  *
  * @author kyngs
  */
-public interface WriteDatabaseProvider {
+public interface WriteDatabaseProvider extends AsyncDatabaseProvider {
 
     /**
      * This method adds a player to the database.
@@ -43,4 +44,48 @@ public interface WriteDatabaseProvider {
      */
     void deleteUser(User user);
 
+    /**
+     * This method adds a player to the database asynchronously.
+     *
+     * @param user The player to add.
+     * @return A future completed once the player is added.
+     * @see #insertUser(User)
+     */
+    default CompletableFuture<Void> insertUserAsync(User user) {
+        return CompletableFuture.runAsync(() -> insertUser(user), getAsyncExecutor());
+    }
+
+    /**
+     * This method adds multiple players to the database asynchronously.
+     *
+     * @param users The players to add.
+     * @return A future completed once the players are added.
+     * @see #insertUsers(Collection)
+     */
+    default CompletableFuture<Void> insertUsersAsync(Collection<User> users) {
+        return CompletableFuture.runAsync(() -> insertUsers(users), getAsyncExecutor());
+    }
+
+    /**
+     * This method updates a player in the database asynchronously.
+     *
+     * @param user The player to update.
+     * @return A future completed once the player is updated.
+     * @see #updateUser(User)
+     */
+    default CompletableFuture<Void> updateUserAsync(User user) {
+        return CompletableFuture.runAsync(() -> updateUser(user), getAsyncExecutor());
+    }
+
+    /**
+     * This method deletes a player from the database asynchronously.
+     *
+     * @param user The player to delete.
+     * @return A future completed once the player is deleted.
+     * @see #deleteUser(User)
+     */
+    default CompletableFuture<Void> deleteUserAsync(User user) {
+        return CompletableFuture.runAsync(() -> deleteUser(user), getAsyncExecutor());
+    }
+
 }
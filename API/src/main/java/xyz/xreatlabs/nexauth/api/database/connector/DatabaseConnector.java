@@ -9,6 +9,10 @@ package xyz.xreatlabs.nexauth.api.database.connector;
 import xyz.xreatlabs.nexauth.api.util.ThrowableConsumer;
 import xyz.xreatlabs.nexauth.api.util.ThrowableFunction;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * An interface used to connect to a database.
  *
@@ -60,6 +64,22 @@ public interface DatabaseConnector<E extends Exception, I> {
      */
     <V> V runQuery(ThrowableFunction<I, V, E> function) throws IllegalStateException;
 
+    /**
+     * Runs a read-only query on the database and handles the exception.
+     * The query may be run on a read replica, so it might not see the most recent writes.
+     * <br>
+     * <b>This method closes the interface after the function has been run</b>
+     *
+     * @param function The function to run.
+     * @param <V>      The return type of the function.
+     * @return The result of the function.
+     * @throws IllegalStateException If the database is not connected.
+     * @see #runQuery(ThrowableFunction)
+     */
+    default <V> V runReadQuery(ThrowableFunction<I, V, E> function) throws IllegalStateException {
+        return runQuery(function);
+    }
+
     /**
      * Runs a query on the database and handles the exception.
      * <br>
@@ -74,4 +94,28 @@ public interface DatabaseConnector<E extends Exception, I> {
             return null;
         });
     }
+
+    /**
+     * Returns the executor, which runs the asynchronous queries.
+     * Implementations should override this with an executor dedicated to the database.
+     *
+     * @return The executor, the common pool by default.
+     */
+    default Executor getAsyncExecutor() {
+        return ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Runs a query on the database asynchronously, using {@link #getAsyncExecutor()}.
+     * <br>
+     * <b>This method closes the interface after the function has been run</b>
+     *
+     * @param function The function to run.
+     * @param <V>      The return type of the function.
+     * @return A future completed with the result of the function, or exceptionally if the query fails.
+     * @see #runQuery(ThrowableFunction)
+     */
+    default <V> CompletableFuture<V> runQueryAsync(ThrowableFunction<I, V, E> function) {
+        return CompletableFuture.supplyAsync(() -> runQuery(function), getAsyncExecutor());
+    }
 }
@@ -6,6 +6,9 @@
 
 package xyz.xreatlabs.nexauth.api.premium;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -24,6 +27,26 @@ public interface PremiumProvider {
      */
     PremiumUser getUserForName(String name) throws PremiumException;
 
+    /**
+     * This method fetches multiple users by their usernames.
+     * Implementations should resolve the names using as few requests as possible.
+     * By default, the users are fetched one by one.
+     *
+     * @param names The usernames of the users.
+     * @return The users by the requested usernames. Usernames of users which do not exist are not included.
+     * @throws PremiumException If the users could not be fetched.
+     */
+    default Map<String, PremiumUser> getUsersForNames(Collection<String> names) throws PremiumException {
+        var users = new HashMap<String, PremiumUser>();
+
+        for (var name : names) {
+            var user = getUserForName(name);
+            if (user != null) users.put(name, user);
+        }
+
+        return users;
+    }
+
     /**
      * This method fetches a user by their UUID.
      *
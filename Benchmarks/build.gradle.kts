@@ -0,0 +1,80 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh").version("0.7.2")
+}
+
+repositories {
+    mavenCentral()
+    maven { url = uri("https://repo.kyngs.xyz/public/") }
+    maven { url = uri("https://jitpack.io/") }
+}
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    implementation(project(":API"))
+    implementation(project(":Plugin"))
+
+    // Provided by the platforms or downloaded by libby, the benchmarks run without either
+    implementation("com.github.kyngs.commands:acf-core:7d5bf7cac0")
+    implementation("net.kyori:adventure-api:4.14.0")
+    implementation("net.kyori:adventure-text-minimessage:4.14.0")
+    implementation("net.kyori:adventure-text-serializer-legacy:4.14.0")
+    implementation("com.github.kyngs:LegacyMessage:0.2.0")
+    implementation("com.google.guava:guava:30.0-jre")
+    implementation("com.google.code.gson:gson:2.10.1")
+    implementation("com.github.ben-manes.caffeine:caffeine:3.2.0")
+    implementation("org.spongepowered:configurate-hocon:4.1.2")
+    implementation("at.favre.lib:bcrypt:0.10.2")
+    implementation("dev.samstevens.totp:totp:1.7.1")
+    implementation("org.bouncycastle:bcprov-jdk18on:1.80")
+    implementation("org.apache.commons:commons-email:1.6.0")
+    implementation("com.zaxxer:HikariCP:6.2.1")
+    implementation("org.xerial:sqlite-jdbc:3.47.1.0")
+    implementation("org.jetbrains:annotations:24.0.1")
+    implementation("org.bstats:bstats-base:3.0.2")
+    implementation("org.slf4j:slf4j-api:2.0.16")
+    runtimeOnly("org.slf4j:slf4j-simple:2.0.16")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // Compare the results of two versions with any JMH visualizer, e.g. jmh.morethan.io
+    resultFormat.set("JSON")
+    resultsFile.set(layout.projectDirectory.file("results/${project.version}.json"))
+    // Run a subset with -PjmhIncludes=CryptoProvider
+    if (project.hasProperty("jmhIncludes")) includes.set(listOf(project.property("jmhIncludes").toString()))
+}
+
+// Reproduces a join wave, e.g. ./gradlew :Benchmarks:joinStorm --args="players=10000 rate=5000 premium=0.3", see JoinStorm for all arguments
+tasks.register<JavaExec>("joinStorm") {
+    group = "benchmark"
+    description = "Joins players through the listeners and the login command, and reports the latency of each stage"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("xyz.xreatlabs.nexauth.benchmark.JoinStorm")
+    javaLauncher.set(javaToolchains.launcherFor {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    })
+}
+
+// Checks the hashing queue rejects a flood of logins on the platform thread executor, e.g. ./gradlew :Benchmarks:loginFlood --args="players=1000"
+tasks.register<JavaExec>("loginFlood") {
+    group = "benchmark"
+    description = "Sends /login for many players at once, and fails if no login is rejected or the executor grows"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("xyz.xreatlabs.nexauth.benchmark.LoginFlood")
+    javaLauncher.set(javaToolchains.launcherFor {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    })
+}
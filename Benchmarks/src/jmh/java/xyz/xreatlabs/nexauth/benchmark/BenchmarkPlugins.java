@@ -0,0 +1,39 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class BenchmarkPlugins {
+
+    private BenchmarkPlugins() {
+    }
+
+    /**
+     * Starts NexAuth with the default limbo and lobby servers, looking up premium players only in the local mirror.
+     */
+    static HeadlessNexAuth start(Map<String, Object> overrides, List<String> premiumMirror) throws IOException {
+        return start(overrides, premiumMirror, List.of(new HeadlessServer("lobby0", false, 1000), new HeadlessServer("lobby1", false, 1000)));
+    }
+
+    static HeadlessNexAuth start(Map<String, Object> overrides, List<String> premiumMirror, List<HeadlessServer> lobbies) throws IOException {
+        var configuration = new HashMap<String, Object>();
+        configuration.put("premium.fetchers", List.of("local"));
+        configuration.putAll(overrides);
+
+        var servers = new ArrayList<>(lobbies);
+        servers.add(new HeadlessServer("limbo0", true, 1000));
+        servers.add(new HeadlessServer("limbo1", true, 1000));
+
+        return HeadlessNexAuth.startTemporary(configuration, servers, premiumMirror);
+    }
+
+}
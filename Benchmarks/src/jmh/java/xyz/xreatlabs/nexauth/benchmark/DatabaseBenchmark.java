@@ -0,0 +1,72 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import xyz.xreatlabs.nexauth.api.database.User;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the queries of a login against the embedded SQLite database, with and without the cache in front of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DatabaseBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    private HeadlessNexAuth plugin;
+    private List<User> users;
+
+    @Setup
+    public void setup() throws IOException {
+        plugin = BenchmarkPlugins.start(Map.of("database.cache.enabled", cache), List.of());
+        users = new ArrayList<>(USERS);
+
+        var now = new Timestamp(System.currentTimeMillis());
+
+        for (int i = 0; i < USERS; i++) {
+            users.add(plugin.createUser(UUID.randomUUID(), null, null, "Player" + i, now, now, null, "127.0.0.1", null, null, null));
+        }
+
+        plugin.getDatabaseProvider().insertUsers(users);
+    }
+
+    @TearDown
+    public void tearDown() {
+        plugin.stop();
+    }
+
+    @Benchmark
+    public User getByName(PreLoginBenchmark.ThreadIndex index) {
+        return plugin.getDatabaseProvider().getByName("player" + index.next(USERS));
+    }
+
+    @Benchmark
+    public User getByUUID(PreLoginBenchmark.ThreadIndex index) {
+        return plugin.getDatabaseProvider().getByUUID(users.get(index.next(USERS)).getUuid());
+    }
+
+    @Benchmark
+    public void updateLastSeen(PreLoginBenchmark.ThreadIndex index) {
+        var user = users.get(index.next(USERS));
+        user.setLastSeen(new Timestamp(System.currentTimeMillis()));
+        plugin.getDatabaseProvider().updateUser(user);
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import xyz.xreatlabs.nexauth.paper.protocol.EncryptionUtil;
+import xyz.xreatlabs.nexauth.paper.protocol.KeyDecryptor;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+
+/**
+ * Measures the decryption of the encryption response of a premium login on Paper, with pooled ciphers and with a new cipher per login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EncryptionResponseBenchmark {
+
+    private KeyPair keyPair;
+    private KeyDecryptor decryptor;
+    private byte[] nonce;
+    private byte[] encryptedNonce;
+    private byte[] encryptedSecret;
+
+    @Setup
+    public void setup() throws GeneralSecurityException {
+        var random = new SecureRandom();
+
+        keyPair = EncryptionUtil.generateKeyPair();
+        decryptor = new KeyDecryptor(keyPair.getPrivate());
+        nonce = EncryptionUtil.generateVerifyToken(random);
+
+        var secret = new byte[16];
+        random.nextBytes(secret);
+
+        var cipher = Cipher.getInstance(keyPair.getPublic().getAlgorithm());
+        cipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+        encryptedNonce = cipher.doFinal(nonce);
+        encryptedSecret = cipher.doFinal(secret);
+    }
+
+    @Benchmark
+    public Object pooled() throws GeneralSecurityException {
+        return decrypt(decryptor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object pooledContended() throws GeneralSecurityException {
+        return decrypt(decryptor);
+    }
+
+    @Benchmark
+    public Object newCipherPerLogin() throws GeneralSecurityException {
+        return decrypt(new KeyDecryptor(keyPair.getPrivate()));
+    }
+
+    private Object decrypt(KeyDecryptor decryptor) throws GeneralSecurityException {
+        if (!EncryptionUtil.verifyNonce(nonce, decryptor, encryptedNonce)) throw new IllegalStateException("Invalid nonce");
+        return EncryptionUtil.decryptSharedKey(decryptor, encryptedSecret);
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import xyz.xreatlabs.nexauth.common.log.LogFilter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the filter, which is called for every line logged by the server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogFilterBenchmark {
+
+    @Param({
+            "[Server thread/INFO]: Done (4.2s)! For help, type \"help\"",
+            "kyngs issued server command: /spawn",
+            "kyngs issued server command: /login hunter2"
+    })
+    public String message;
+
+    private final BenchmarkLogFilter filter = new BenchmarkLogFilter();
+
+    @Benchmark
+    public boolean checkMessage() {
+        return filter.check(message);
+    }
+
+    private static class BenchmarkLogFilter extends LogFilter {
+
+        private boolean check(String message) {
+            return checkMessage(message);
+        }
+
+        @Override
+        public void inject() {
+        }
+
+    }
+
+}
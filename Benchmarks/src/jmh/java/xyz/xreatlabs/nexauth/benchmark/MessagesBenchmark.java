@@ -0,0 +1,50 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import net.kyori.adventure.text.TextComponent;
+import org.openjdk.jmh.annotations.*;
+import xyz.xreatlabs.nexauth.common.config.HoconMessages;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the messages sent on every join, with and without replacements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessagesBenchmark {
+
+    private HeadlessNexAuth plugin;
+    private HoconMessages messages;
+
+    @Setup
+    public void setup() throws IOException {
+        plugin = BenchmarkPlugins.start(Map.of(), List.of());
+        messages = plugin.getMessages();
+    }
+
+    @TearDown
+    public void tearDown() {
+        plugin.stop();
+    }
+
+    @Benchmark
+    public TextComponent withoutReplacements() {
+        return messages.getMessage("info-logged-in");
+    }
+
+    @Benchmark
+    public TextComponent withReplacements() {
+        return messages.getMessage("kick-ip-limit", "%limit%", "3");
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import xyz.xreatlabs.nexauth.common.listener.PreLoginResult;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the pre-login of registered cracked and premium players, of new players and of illegal names.
+ * Premium players are looked up in the local mirror, so the result doesn't depend on the Mojang API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreLoginBenchmark {
+
+    private static final int PLAYERS = 1000;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private final AtomicLong newPlayers = new AtomicLong();
+    private HeadlessNexAuth plugin;
+    private HeadlessListeners listeners;
+    private InetAddress address;
+
+    @Setup
+    public void setup() throws IOException {
+        var mirror = new ArrayList<String>();
+
+        for (int i = 0; i < PLAYERS; i++) {
+            mirror.add("Premium" + i + ";" + UUID.nameUUIDFromBytes(("Premium" + i).getBytes()));
+        }
+
+        plugin = BenchmarkPlugins.start(Map.of(
+                "database.cache.enabled", cache,
+                "auto-register", true
+        ), mirror);
+        listeners = plugin.getListeners();
+        address = InetAddress.getLoopbackAddress();
+
+        // Registers the players
+        for (int i = 0; i < PLAYERS; i++) {
+            listeners.preLogin("Premium" + i, address);
+            listeners.preLogin("Cracked" + i, address);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        plugin.stop();
+    }
+
+    @Benchmark
+    public PreLoginResult registeredCracked(ThreadIndex index) {
+        return listeners.preLogin("Cracked" + index.next(PLAYERS), address);
+    }
+
+    @Benchmark
+    public PreLoginResult registeredPremium(ThreadIndex index) {
+        return listeners.preLogin("Premium" + index.next(PLAYERS), address);
+    }
+
+    @Benchmark
+    public PreLoginResult newCracked() {
+        return listeners.preLogin("New" + newPlayers.incrementAndGet(), address);
+    }
+
+    @Benchmark
+    public PreLoginResult illegalName() {
+        return listeners.preLogin("Not a valid name!", address);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadIndex {
+
+        private int index;
+
+        int next(int bound) {
+            index = (index + 1) % bound;
+            return index;
+        }
+
+    }
+
+}
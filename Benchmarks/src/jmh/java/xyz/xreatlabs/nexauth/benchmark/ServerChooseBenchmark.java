@@ -0,0 +1,63 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures choosing the lobby server with the fewest players, which happens on every login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ServerChooseBenchmark {
+
+    @Param({"2", "50", "500"})
+    public int lobbies;
+
+    private HeadlessNexAuth plugin;
+    private HeadlessPlayer player;
+
+    @Setup
+    public void setup() throws IOException {
+        var servers = new ArrayList<HeadlessServer>();
+        var names = new ArrayList<String>();
+
+        for (int i = 0; i < lobbies; i++) {
+            servers.add(new HeadlessServer("lobby" + i, false, 1000));
+            names.add("lobby" + i);
+        }
+
+        plugin = BenchmarkPlugins.start(Map.of("lobby.root", names), List.of(), servers);
+        player = new HeadlessPlayer("kyngs", "127.0.0.1", UUID.randomUUID());
+
+        // Spreads the players, so the servers differ in their player count
+        for (int i = 0; i < servers.size(); i++) {
+            for (int j = 0; j < i % 20; j++) {
+                new HeadlessPlayer("filler", "127.0.0.1", UUID.randomUUID()).setServer(servers.get(i));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        plugin.stop();
+    }
+
+    @Benchmark
+    public HeadlessServer chooseLobbyServer() {
+        return plugin.getServerHandler().chooseLobbyServer(null, player, false, false);
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import org.jetbrains.annotations.Nullable;
+import xyz.xreatlabs.nexauth.api.BiHolder;
+import xyz.xreatlabs.nexauth.api.database.User;
+import xyz.xreatlabs.nexauth.common.listener.AuthenticListeners;
+import xyz.xreatlabs.nexauth.common.listener.PreLoginResult;
+
+import java.net.InetAddress;
+
+/**
+ * Exposes the listeners, the way a platform would call them.
+ */
+public class HeadlessListeners extends AuthenticListeners<HeadlessNexAuth, HeadlessPlayer, HeadlessServer> {
+
+    public HeadlessListeners(HeadlessNexAuth plugin) {
+        super(plugin);
+    }
+
+    public PreLoginResult preLogin(String username, InetAddress address) {
+        return onPreLogin(username, address);
+    }
+
+    /**
+     * @return Whether the player was sent to a lobby and the server, or null if there is none
+     */
+    public BiHolder<Boolean, HeadlessServer> chooseInitialServer(HeadlessPlayer player, @Nullable User user) {
+        var server = chooseServer(player, player.getIp(), user);
+
+        if (server.value() == null) {
+            player.kick(plugin.getMessages().getMessage("kick-no-" + (server.key() ? "lobby" : "limbo")));
+        } else {
+            player.setServer(server.value());
+        }
+
+        return server;
+    }
+
+    public void postLogin(HeadlessPlayer player, @Nullable User user) {
+        onPostLogin(player, user);
+    }
+
+    public void disconnect(HeadlessPlayer player) {
+        onPlayerDisconnect(player);
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import co.aikar.commands.CommandIssuer;
+import co.aikar.commands.CommandManager;
+import net.kyori.adventure.audience.Audience;
+import org.bstats.charts.CustomChart;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.LoggerFactory;
+import org.spongepowered.configurate.hocon.HoconConfigurationLoader;
+import xyz.xreatlabs.nexauth.api.Logger;
+import xyz.xreatlabs.nexauth.api.PlatformHandle;
+import xyz.xreatlabs.nexauth.api.configuration.CorruptedConfigurationException;
+import xyz.xreatlabs.nexauth.api.database.User;
+import xyz.xreatlabs.nexauth.api.event.exception.EventCancelledException;
+import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
+import xyz.xreatlabs.nexauth.common.SLF4JLogger;
+import xyz.xreatlabs.nexauth.common.config.HoconPluginConfiguration;
+import xyz.xreatlabs.nexauth.common.image.AuthenticImageProjector;
+import xyz.xreatlabs.nexauth.common.util.CancellableTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.DEBUG;
+
+/**
+ * Runs NexAuth without a proxy or server, for the benchmarks and the load generator.
+ * <p>
+ * The configuration is generated in the data folder and the given values are written over the defaults, before NexAuth is enabled.
+ * There are no commands, the commands are called directly instead.
+ */
+public class HeadlessNexAuth extends AuthenticNexAuth<HeadlessPlayer, HeadlessServer> {
+
+    private final File dataFolder;
+    private final Map<String, Object> configurationOverrides;
+    private final ScheduledExecutorService scheduler;
+    private final Map<UUID, HeadlessPlayer> players;
+    private HeadlessListeners listeners;
+    private boolean temporary;
+
+    /**
+     * @param dataFolder             The folder with the configuration, messages and the SQLite database
+     * @param configurationOverrides The configuration values by their path, e.g. "premium.fetchers"
+     */
+    public HeadlessNexAuth(File dataFolder, Map<String, Object> configurationOverrides) {
+        this.dataFolder = dataFolder;
+        this.configurationOverrides = configurationOverrides;
+        this.scheduler = Executors.newScheduledThreadPool(2, Thread.ofPlatform().daemon().name("NexAuth Scheduler #", 1).factory());
+        this.players = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Starts NexAuth in a new temporary folder, which is deleted on {@link #stop()}.
+     *
+     * @param servers       The servers, the limbo and lobby servers in the configuration must be among them
+     * @param premiumMirror The lines of the local premium mirror, used if "premium.fetchers" contains "local"
+     */
+    public static HeadlessNexAuth startTemporary(Map<String, Object> configurationOverrides, Collection<HeadlessServer> servers, List<String> premiumMirror) throws IOException {
+        var folder = Files.createTempDirectory("nexauth-benchmark");
+        Files.write(folder.resolve("premium-mirror.txt"), premiumMirror);
+
+        var plugin = new HeadlessNexAuth(folder.toFile(), configurationOverrides);
+        plugin.temporary = true;
+
+        // Skips downloading the forbidden passwords on every start
+        try (var template = plugin.getResourceAsStream("forbidden-passwords-template.txt")) {
+            Files.copy(template, folder.resolve("forbidden-passwords.txt"));
+        }
+
+        servers.forEach(plugin.getHeadlessPlatformHandle()::registerServer);
+
+        plugin.start();
+
+        return plugin;
+    }
+
+    public void start() {
+        logger = provideLogger();
+        checkDataFolder();
+
+        try {
+            writeConfiguration();
+        } catch (IOException | CorruptedConfigurationException e) {
+            throw new IllegalStateException("Failed to write the configuration", e);
+        }
+
+        enable();
+
+        listeners = new HeadlessListeners(this);
+    }
+
+    public void stop() {
+        disable();
+        scheduler.shutdownNow();
+
+        if (temporary) {
+            try (var files = Files.walk(dataFolder.toPath())) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            } catch (IOException e) {
+                logger.warn("Failed to delete the temporary folder " + dataFolder, e);
+            }
+        }
+    }
+
+    private void writeConfiguration() throws IOException, CorruptedConfigurationException {
+        // Generating the defaults first, NexAuth shuts down if it generates a new configuration by itself
+        new HoconPluginConfiguration(logger, List.of()).reload(this);
+
+        var loader = HoconConfigurationLoader.builder()
+                .file(new File(dataFolder, "config.conf"))
+                .build();
+        var root = loader.load();
+
+        for (var entry : configurationOverrides.entrySet()) {
+            root.node((Object[]) entry.getKey().split("\\.")).set(entry.getValue());
+        }
+
+        loader.save(root);
+    }
+
+    public HeadlessListeners getListeners() {
+        return listeners;
+    }
+
+    public HeadlessPlatformHandle getHeadlessPlatformHandle() {
+        return (HeadlessPlatformHandle) getPlatformHandle();
+    }
+
+    public void connect(HeadlessPlayer player) {
+        players.put(player.getUuid(), player);
+    }
+
+    public void disconnect(HeadlessPlayer player) {
+        players.remove(player.getUuid());
+        player.setServer(null);
+        listeners.disconnect(player);
+    }
+
+    @Override
+    protected PlatformHandle<HeadlessPlayer, HeadlessServer> providePlatformHandle() {
+        return new HeadlessPlatformHandle(this);
+    }
+
+    @Override
+    protected Logger provideLogger() {
+        return new SLF4JLogger(LoggerFactory.getLogger("NexAuth"), () -> getConfiguration() != null && getConfiguration().get(DEBUG));
+    }
+
+    @Nullable
+    @Override
+    public CommandManager<?, ?, ?, ?, ?, ?> provideManager() {
+        return null;
+    }
+
+    @Override
+    public HeadlessPlayer getPlayerFromIssuer(CommandIssuer issuer) {
+        return null;
+    }
+
+    @Override
+    public Audience getAudienceFromIssuer(CommandIssuer issuer) {
+        return Audience.empty();
+    }
+
+    @Override
+    public void authorize(HeadlessPlayer player, User user, Audience audience) {
+        try {
+            var lobby = getServerHandler().chooseLobbyServer(user, player, true, false);
+
+            if (lobby == null) {
+                player.kick(getMessages().getMessage("kick-no-lobby"));
+                return;
+            }
+
+            player.setServer(lobby);
+        } catch (EventCancelledException ignored) {
+        }
+    }
+
+    @Override
+    public CancellableTask delay(Runnable runnable, long delayInMillis) {
+        var future = scheduler.schedule(runnable, delayInMillis, TimeUnit.MILLISECONDS);
+        return () -> future.cancel(false);
+    }
+
+    @Override
+    public CancellableTask repeat(Runnable runnable, long delayInMillis, long repeatInMillis) {
+        var future = scheduler.scheduleAtFixedRate(runnable, delayInMillis, repeatInMillis, TimeUnit.MILLISECONDS);
+        return () -> future.cancel(false);
+    }
+
+    @Override
+    public boolean pluginPresent(String pluginName) {
+        return false;
+    }
+
+    @Override
+    protected AuthenticImageProjector<HeadlessPlayer, HeadlessServer> provideImageProjector() {
+        return null;
+    }
+
+    @Override
+    protected void initMetrics(CustomChart... charts) {
+    }
+
+    @Override
+    protected void shutdownProxy(int code) {
+        throw new IllegalStateException("NexAuth failed to start, see the log above");
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String name) {
+        var stream = AuthenticNexAuth.class.getClassLoader().getResourceAsStream(name);
+        return stream == null ? InputStream.nullInputStream() : stream;
+    }
+
+    @Override
+    public File getDataFolder() {
+        return dataFolder;
+    }
+
+    @Override
+    public String getVersion() {
+        // A development version, so no metrics are sent
+        return "0.0.0-SNAPSHOT";
+    }
+
+    @Override
+    public boolean isPresent(UUID uuid) {
+        return players.containsKey(uuid);
+    }
+
+    @Override
+    public boolean multiProxyEnabled() {
+        return false;
+    }
+
+    @Override
+    public HeadlessPlayer getPlayerForUUID(UUID uuid) {
+        return players.get(uuid);
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import xyz.xreatlabs.nexauth.api.PlatformHandle;
+import xyz.xreatlabs.nexauth.api.server.ServerPing;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class HeadlessPlatformHandle implements PlatformHandle<HeadlessPlayer, HeadlessServer> {
+
+    private final HeadlessNexAuth plugin;
+    private final Map<String, HeadlessServer> servers;
+
+    public HeadlessPlatformHandle(HeadlessNexAuth plugin) {
+        this.plugin = plugin;
+        this.servers = new ConcurrentHashMap<>();
+    }
+
+    public void registerServer(HeadlessServer server) {
+        servers.put(server.getName(), server);
+    }
+
+    @Override
+    public Audience getAudienceForPlayer(HeadlessPlayer player) {
+        return player;
+    }
+
+    @Override
+    public UUID getUUIDForPlayer(HeadlessPlayer player) {
+        return player.getUuid();
+    }
+
+    @Override
+    public CompletableFuture<Throwable> movePlayer(HeadlessPlayer player, HeadlessServer to) {
+        player.setServer(to);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void kick(HeadlessPlayer player, Component reason) {
+        player.kick(reason);
+    }
+
+    @Override
+    public HeadlessServer getServer(String name, boolean limbo) {
+        return servers.get(name);
+    }
+
+    @Override
+    public Class<HeadlessServer> getServerClass() {
+        return HeadlessServer.class;
+    }
+
+    @Override
+    public Class<HeadlessPlayer> getPlayerClass() {
+        return HeadlessPlayer.class;
+    }
+
+    @Override
+    public String getIP(HeadlessPlayer player) {
+        return player.getIp();
+    }
+
+    @Override
+    public ServerPing ping(HeadlessServer server) {
+        return new ServerPing(server.getMaxPlayers());
+    }
+
+    @Override
+    public Collection<HeadlessServer> getServers() {
+        return servers.values();
+    }
+
+    @Override
+    public String getServerName(HeadlessServer server) {
+        return server.getName();
+    }
+
+    @Override
+    public int getConnectedPlayers(HeadlessServer server) {
+        return server.getConnected();
+    }
+
+    @Override
+    public String getPlayersServerName(HeadlessPlayer player) {
+        var server = player.getServer();
+        return server == null ? null : server.getName();
+    }
+
+    @Override
+    public String getPlayersVirtualHost(HeadlessPlayer player) {
+        return null;
+    }
+
+    @Override
+    public String getUsernameForPlayer(HeadlessPlayer player) {
+        return player.getName();
+    }
+
+    @Override
+    public String getPlatformIdentifier() {
+        return "headless";
+    }
+
+    @Override
+    public ProxyData getProxyData() {
+        return new ProxyData(
+                "headless",
+                servers.keySet().stream().toList(),
+                List.of(),
+                plugin.getServerHandler().getLimboServers().stream().map(Object::toString).toList(),
+                plugin.getServerHandler().getLobbyServers().values().stream().map(Object::toString).toList()
+        );
+    }
+
+}
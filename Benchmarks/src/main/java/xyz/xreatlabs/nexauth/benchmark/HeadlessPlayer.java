@@ -0,0 +1,74 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * A connected player, messages sent to it are dropped.
+ */
+public class HeadlessPlayer implements Audience {
+
+    private final String name;
+    private final String ip;
+    private final UUID uuid;
+    private volatile HeadlessServer server;
+    private volatile Component kickReason;
+
+    public HeadlessPlayer(String name, String ip, UUID uuid) {
+        this.name = name;
+        this.ip = ip;
+        this.uuid = uuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    @Nullable
+    public HeadlessServer getServer() {
+        return server;
+    }
+
+    void setServer(@Nullable HeadlessServer server) {
+        var previous = this.server;
+        if (previous != null) previous.leave();
+        if (server != null) server.join();
+        this.server = server;
+    }
+
+    /**
+     * @return The reason the player was kicked for, or null if the player wasn't kicked
+     */
+    @Nullable
+    public Component getKickReason() {
+        return kickReason;
+    }
+
+    void kick(Component reason) {
+        kickReason = reason;
+        setServer(null);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A backend server, which only counts its players.
+ */
+public class HeadlessServer {
+
+    private final String name;
+    private final boolean limbo;
+    private final int maxPlayers;
+    private final AtomicInteger connected;
+
+    public HeadlessServer(String name, boolean limbo, int maxPlayers) {
+        this.name = name;
+        this.limbo = limbo;
+        this.maxPlayers = maxPlayers;
+        this.connected = new AtomicInteger();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isLimbo() {
+        return limbo;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    public int getConnected() {
+        return connected.get();
+    }
+
+    void join() {
+        connected.incrementAndGet();
+    }
+
+    void leave() {
+        connected.decrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
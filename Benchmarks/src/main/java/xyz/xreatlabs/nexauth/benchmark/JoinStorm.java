@@ -0,0 +1,403 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import xyz.xreatlabs.nexauth.api.database.User;
+import xyz.xreatlabs.nexauth.common.command.InvalidCommandArgument;
+import xyz.xreatlabs.nexauth.common.command.commands.authorization.LoginCommand;
+import xyz.xreatlabs.nexauth.common.command.commands.authorization.RegisterCommand;
+import xyz.xreatlabs.nexauth.common.listener.PreLoginState;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Reproduces a join wave against NexAuth, without a proxy, a server or the Mojang API.
+ * <p>
+ * Players join at a fixed rate, each one goes through the pre-login, the game profile request, the post-login, the choice of the initial server and,
+ * if it ends up in the limbo, /login or /register, in the order a proxy calls them.
+ * Premium players are looked up in a local stand-in for the Mojang API and PlayerDB, the users are stored in SQLite.
+ * <p>
+ * The arguments are "key=value" pairs, e.g. {@code players=10000 rate=5000 premium=0.3}:
+ * <ul>
+ *     <li>players - The amount of players joining, 5000 by default</li>
+ *     <li>rate - The amount of players joining per minute, 5000 by default</li>
+ *     <li>premium - The share of premium players, 0.4 by default</li>
+ *     <li>registered - The share of players, who have joined before, 0.5 by default</li>
+ *     <li>mojang-latency - The latency of the Mojang API stand-in in milliseconds, 50 by default</li>
+ *     <li>mojang-failures - The share of requests to the Mojang API stand-in, which fail, 0 by default</li>
+ *     <li>timeout - The amount of seconds to wait for the last joins, 300 by default</li>
+ *     <li>config.&lt;path&gt; - Overrides a value of the configuration, e.g. {@code config.database.cache.enabled=false}</li>
+ * </ul>
+ */
+public class JoinStorm {
+
+    private static final String PASSWORD = "JoinStorm-Password-1";
+
+    private final Map<String, String> arguments;
+    private final Map<Stage, StageRecorder> recorders;
+    private final Map<String, LongAdder> outcomes;
+    private HeadlessNexAuth plugin;
+    private HeadlessListeners listeners;
+
+    public JoinStorm(Map<String, String> arguments) {
+        this.arguments = arguments;
+        this.recorders = new ConcurrentHashMap<>();
+        this.outcomes = new ConcurrentHashMap<>();
+
+        for (var stage : Stage.values()) {
+            recorders.put(stage, new StageRecorder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        var arguments = new HashMap<String, String>();
+
+        for (var arg : args) {
+            var separator = arg.indexOf('=');
+            if (separator < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            arguments.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        new JoinStorm(arguments).run();
+    }
+
+    public void run() throws Exception {
+        var players = getInt("players", 5000);
+        var rate = getDouble("rate", 5000);
+        var premiumShare = getDouble("premium", 0.4);
+        var registeredShare = getDouble("registered", 0.5);
+        var timeout = getInt("timeout", 300);
+
+        var random = new Random(42);
+        var joins = new ArrayList<Join>(players);
+
+        for (int i = 0; i < players; i++) {
+            var premium = random.nextDouble() < premiumShare;
+            var registered = random.nextDouble() < registeredShare;
+            var name = (premium ? "Prem" : "Crack") + (registered ? "Reg" : "New") + i;
+            var premiumUUID = premium ? UUID.nameUUIDFromBytes(name.getBytes()) : null;
+
+            joins.add(new Join(name, premiumUUID, registered, addressOf(i)));
+        }
+
+        try (var mojang = new MockMojangServer(getInt("mojang-latency", 50), getDouble("mojang-failures", 0))) {
+            for (var join : joins) {
+                if (join.premiumUUID() != null) mojang.addProfile(join.name(), join.premiumUUID());
+            }
+
+            mojang.start();
+
+            var configuration = new HashMap<String, Object>();
+            configuration.put("premium.fetchers", List.of("mojang", "playerdb"));
+            configuration.put("premium.urls.mojang", mojang.getUrl());
+            configuration.put("premium.urls.mojang-bulk", mojang.getUrl());
+            configuration.put("premium.urls.session", mojang.getUrl());
+            configuration.put("premium.urls.playerdb", mojang.getUrl());
+            configuration.put("auto-register", true);
+
+            for (var entry : arguments.entrySet()) {
+                if (entry.getKey().startsWith("config.")) {
+                    configuration.put(entry.getKey().substring("config.".length()), parseValue(entry.getValue()));
+                }
+            }
+
+            plugin = HeadlessNexAuth.startTemporary(configuration, List.of(
+                    new HeadlessServer("limbo0", true, players),
+                    new HeadlessServer("limbo1", true, players),
+                    new HeadlessServer("lobby0", false, players),
+                    new HeadlessServer("lobby1", false, players)
+            ), List.of());
+            listeners = plugin.getListeners();
+
+            try {
+                registerReturningPlayers(joins);
+
+                System.out.printf("Joining %d players at %.0f per minute%n", players, rate);
+
+                var interval = (long) (TimeUnit.MINUTES.toNanos(1) / rate);
+                var executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("JoinStorm #", 1).factory());
+                var start = System.nanoTime();
+
+                // The players join on schedule, no matter how long the previous joins take, so slow joins don't hide the latency of the next ones
+                for (int i = 0; i < joins.size(); i++) {
+                    var join = joins.get(i);
+                    var arrival = start + i * interval;
+
+                    LockSupport.parkNanos(arrival - System.nanoTime());
+                    executor.submit(() -> join(join));
+                }
+
+                executor.shutdown();
+
+                if (!executor.awaitTermination(timeout, TimeUnit.SECONDS)) {
+                    System.out.printf("%d joins did not finish within %d seconds%n", executor.shutdownNow().size(), timeout);
+                }
+
+                report(System.nanoTime() - start, mojang);
+            } finally {
+                plugin.stop();
+            }
+        }
+    }
+
+    /**
+     * Stores the players, who have joined before, all of them have the same password, which is hashed only once.
+     */
+    private void registerReturningPlayers(List<Join> joins) {
+        var hash = plugin.getDefaultCryptoProvider().createHash(PASSWORD);
+        var now = new Timestamp(System.currentTimeMillis());
+        var users = new ArrayList<User>();
+
+        for (var join : joins) {
+            if (!join.registered()) continue;
+
+            users.add(plugin.createUser(
+                    plugin.generateNewUUID(join.name(), join.premiumUUID()),
+                    join.premiumUUID(),
+                    join.premiumUUID() == null ? hash : null,
+                    join.name(),
+                    now,
+                    now,
+                    null,
+                    join.address().getHostAddress(),
+                    null,
+                    null,
+                    null
+            ));
+        }
+
+        plugin.getDatabaseProvider().insertUsers(users);
+    }
+
+    private void join(Join join) {
+        var start = System.nanoTime();
+
+        try {
+            var result = record(Stage.PRE_LOGIN, () -> listeners.preLogin(join.name(), join.address()));
+
+            if (result.state() == PreLoginState.DENIED) {
+                outcome("denied: " + plainText(result.message()));
+                return;
+            }
+
+            // The proxy asks for the game profile, NexAuth replaces the UUID with the one in the database
+            var user = record(Stage.GAME_PROFILE, () -> plugin.getDatabaseProvider().getByName(join.name()));
+            var player = new HeadlessPlayer(join.name(), join.address().getHostAddress(), user.getUuid());
+
+            plugin.connect(player);
+
+            record(Stage.POST_LOGIN, () -> {
+                listeners.postLogin(player, null);
+                return null;
+            });
+
+            var server = record(Stage.CHOOSE_SERVER, () -> listeners.chooseInitialServer(player, null));
+
+            if (server.value() == null) {
+                outcome("kicked: " + plainText(player.getKickReason()));
+                return;
+            }
+
+            if (!server.key()) {
+                try {
+                    record(Stage.LOGIN, () -> (user.isRegistered()
+                            ? new LoginCommand<>(plugin).onLogin(player, player, PASSWORD, null)
+                            : new RegisterCommand<>(plugin).onRegister(player, player, PASSWORD, PASSWORD)
+                    ).toCompletableFuture().join());
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof InvalidCommandArgument argument) {
+                        outcome((user.isRegistered() ? "login" : "register") + " failed: " + plainText(argument.getUserFuckUp()));
+                        return;
+                    }
+                    throw e;
+                }
+            }
+
+            var current = player.getServer();
+
+            if (current == null) {
+                outcome("kicked: " + plainText(player.getKickReason()));
+            } else if (current.isLimbo()) {
+                outcome("stuck in the limbo");
+            } else {
+                outcome(join.premiumUUID() == null ? "cracked in a lobby" : "premium in a lobby");
+                recorders.get(Stage.TOTAL).record(System.nanoTime() - start, true);
+            }
+        } catch (RuntimeException e) {
+            outcome("failed: " + e);
+        }
+    }
+
+    private <T> T record(Stage stage, Supplier<T> operation) {
+        var start = System.nanoTime();
+        var success = false;
+
+        try {
+            var result = operation.get();
+            success = true;
+            return result;
+        } finally {
+            recorders.get(stage).record(System.nanoTime() - start, success);
+        }
+    }
+
+    private void outcome(String outcome) {
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    private void report(long elapsedNanos, MockMojangServer mojang) {
+        var seconds = elapsedNanos / 1e9;
+
+        System.out.printf("%nFinished in %.1f s%n%n", seconds);
+        System.out.printf("%-14s %8s %7s %10s %9s %9s %9s %9s %9s%n", "Stage", "Count", "Errors", "Per second", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms");
+
+        for (var stage : Stage.values()) {
+            var recorder = recorders.get(stage);
+            var latencies = recorder.getLatencies();
+
+            System.out.printf("%-14s %8d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    stage.getName(),
+                    latencies.length,
+                    recorder.getErrors(),
+                    latencies.length / seconds,
+                    percentile(latencies, 0.5),
+                    percentile(latencies, 0.9),
+                    percentile(latencies, 0.99),
+                    percentile(latencies, 0.999),
+                    percentile(latencies, 1)
+            );
+        }
+
+        System.out.printf("%nOutcomes:%n");
+        outcomes.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> System.out.printf("  %-40s %8d%n", entry.getKey(), entry.getValue().sum()));
+
+        System.out.printf("%nMojang API stand-in: %d requests, %d failed%n", mojang.getRequests(), mojang.getFailures());
+    }
+
+    /**
+     * @return The latency at the percentile in milliseconds, the latencies must be sorted
+     */
+    private static double percentile(long[] latencies, double percentile) {
+        if (latencies.length == 0) return 0;
+
+        var index = (int) Math.max(0, Math.min(latencies.length - 1, Math.ceil(percentile * latencies.length) - 1));
+        return latencies[index] / 1e6;
+    }
+
+    private static String plainText(Component component) {
+        if (component == null) return "no reason";
+
+        var builder = new StringBuilder();
+        ComponentFlattener.basic().flatten(component, builder::append);
+        return builder.toString().replace('\n', ' ');
+    }
+
+    /**
+     * @return A distinct address for each player, so the players don't share the IP limit and the hashing capacity of a single address
+     */
+    private static InetAddress addressOf(int index) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[]{10, (byte) (index >> 16), (byte) (index >> 8), (byte) index});
+    }
+
+    private static Object parseValue(String value) {
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) return Boolean.parseBoolean(value);
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ignored) {
+        }
+
+        // Lists are separated by commas, e.g. config.premium.fetchers=mojang,playerdb
+        return value.contains(",") ? Arrays.asList(value.split(",")) : value;
+    }
+
+    private int getInt(String key, int defaultValue) {
+        var value = arguments.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private double getDouble(String key, double defaultValue) {
+        var value = arguments.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private record Join(String name, UUID premiumUUID, boolean registered, InetAddress address) {
+    }
+
+    private enum Stage {
+
+        PRE_LOGIN("Pre-login"),
+        GAME_PROFILE("Game profile"),
+        POST_LOGIN("Post-login"),
+        CHOOSE_SERVER("Choose server"),
+        LOGIN("Login"),
+        TOTAL("Total");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+    }
+
+    /**
+     * Keeps every latency, a join wave is small enough and the percentiles are exact
+     */
+    private static class StageRecorder {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        synchronized void record(long nanos, boolean success) {
+            if (!success) {
+                errors++;
+                return;
+            }
+
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+        }
+
+        synchronized long[] getLatencies() {
+            var sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        synchronized long getErrors() {
+            return errors;
+        }
+
+    }
+
+}
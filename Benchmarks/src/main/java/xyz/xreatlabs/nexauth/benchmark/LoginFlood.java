@@ -0,0 +1,300 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.flattener.ComponentFlattener;
+import xyz.xreatlabs.nexauth.api.database.User;
+import xyz.xreatlabs.nexauth.common.command.InvalidCommandArgument;
+import xyz.xreatlabs.nexauth.common.command.commands.authorization.LoginCommand;
+import xyz.xreatlabs.nexauth.common.listener.PreLoginState;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends /login for every player in the limbo at once, and checks the hashing queue rejects the logins over its limit,
+ * instead of the commands piling up on the executor.
+ * <p>
+ * The executor uses platform threads unless overridden, so the commands must not wait for the hashes on it.
+ * While the logins run, a probe measures how long a task waits for the executor, and how many threads the executor grows to,
+ * a fork join pool adds a thread for each one waiting.
+ * The check fails, with exit code 1, if no login was rejected, or if the executor had to add threads for the waiting commands.
+ * <p>
+ * The arguments are "key=value" pairs, e.g. {@code players=1000}:
+ * <ul>
+ *     <li>players - The amount of players sending /login, 500 by default</li>
+ *     <li>timeout - The amount of seconds to wait for the logins, 120 by default</li>
+ *     <li>config.&lt;path&gt; - Overrides a value of the configuration, e.g. {@code config.hashing.queue-size=128}</li>
+ * </ul>
+ */
+public class LoginFlood {
+
+    private static final String PASSWORD = "LoginFlood-Password-1";
+
+    private final Map<String, String> arguments;
+    private final Map<String, LongAdder> outcomes;
+    private HeadlessNexAuth plugin;
+
+    public LoginFlood(Map<String, String> arguments) {
+        this.arguments = arguments;
+        this.outcomes = new ConcurrentHashMap<>();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var arguments = new HashMap<String, String>();
+
+        for (var arg : args) {
+            var separator = arg.indexOf('=');
+            if (separator < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            arguments.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        System.exit(new LoginFlood(arguments).run() ? 0 : 1);
+    }
+
+    /**
+     * @return Whether some logins were rejected, and the executor kept its threads
+     */
+    public boolean run() throws Exception {
+        var players = Integer.parseInt(arguments.getOrDefault("players", "500"));
+        var timeout = Integer.parseInt(arguments.getOrDefault("timeout", "120"));
+
+        try (var mojang = new MockMojangServer(0, 0)) {
+            mojang.start();
+
+            var configuration = new HashMap<String, Object>();
+            configuration.put("premium.fetchers", List.of("mojang"));
+            configuration.put("premium.urls.mojang", mojang.getUrl());
+            configuration.put("premium.urls.mojang-bulk", mojang.getUrl());
+            configuration.put("premium.urls.session", mojang.getUrl());
+            configuration.put("executor.virtual-threads", false);
+
+            for (var entry : arguments.entrySet()) {
+                if (entry.getKey().startsWith("config.")) {
+                    configuration.put(entry.getKey().substring("config.".length()), parseValue(entry.getValue()));
+                }
+            }
+
+            plugin = HeadlessNexAuth.startTemporary(configuration, List.of(
+                    new HeadlessServer("limbo0", true, players),
+                    new HeadlessServer("lobby0", false, players)
+            ), List.of());
+
+            try {
+                var joined = join(players);
+
+                System.out.printf("Sending /login for %d players at once%n", joined.size());
+
+                var probe = new ExecutorProbe();
+                var probeThread = Thread.ofPlatform().daemon().name("LoginFlood Probe").start(probe);
+                var logins = new ArrayList<CompletableFuture<Void>>(joined.size());
+                var start = System.nanoTime();
+
+                for (var player : joined) {
+                    logins.add(new LoginCommand<>(plugin).onLogin(player, player, PASSWORD, null).toCompletableFuture()
+                            .handle((result, throwable) -> {
+                                outcome(throwable);
+                                return null;
+                            }));
+                }
+
+                var sent = System.nanoTime() - start;
+
+                CompletableFuture.allOf(logins.toArray(CompletableFuture[]::new)).get(timeout, TimeUnit.SECONDS);
+
+                var elapsed = System.nanoTime() - start;
+
+                probeThread.interrupt();
+                probeThread.join();
+
+                var rejected = plugin.getHashingScheduler().getRejected();
+
+                System.out.printf("%nSent in %.1f ms, finished in %.1f s%n", sent / 1e6, elapsed / 1e9);
+                System.out.printf("Executor wait while flooded: p50 %.2f ms, max %.2f ms, %d probes%n", probe.percentile(0.5), probe.percentile(1), probe.count());
+                if (probe.maximumThreads() > 0) System.out.printf("Executor threads while flooded: at most %d%n", probe.maximumThreads());
+                System.out.printf("Hashes rejected by the scheduler: %d%n", rejected);
+
+                System.out.printf("%nOutcomes:%n");
+                outcomes.entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey())
+                        .forEach(entry -> System.out.printf("  %-50s %8d%n", entry.getKey(), entry.getValue().sum()));
+
+                if (rejected == 0) {
+                    System.out.printf("%nNo login was rejected, the hashing queue did not apply%n");
+                    return false;
+                }
+
+                if (plugin.getExecutor() instanceof ForkJoinPool pool && probe.maximumThreads() > pool.getParallelism()) {
+                    System.out.printf("%nThe executor grew beyond %d threads, commands waited on it%n", pool.getParallelism());
+                    return false;
+                }
+
+                return true;
+            } finally {
+                plugin.stop();
+            }
+        }
+    }
+
+    /**
+     * Registers the players with the same password, hashed only once, and joins them into the limbo.
+     */
+    private List<HeadlessPlayer> join(int players) throws UnknownHostException {
+        var hash = plugin.getDefaultCryptoProvider().createHash(PASSWORD);
+        var now = new Timestamp(System.currentTimeMillis());
+        var users = new ArrayList<User>(players);
+
+        for (int i = 0; i < players; i++) {
+            var name = "Flood" + i;
+
+            users.add(plugin.createUser(plugin.generateNewUUID(name, null), null, hash, name, now, now, null, addressOf(i).getHostAddress(), null, null, null));
+        }
+
+        plugin.getDatabaseProvider().insertUsers(users);
+
+        var listeners = plugin.getListeners();
+        var joined = new ArrayList<HeadlessPlayer>(players);
+
+        for (int i = 0; i < players; i++) {
+            var name = "Flood" + i;
+            var address = addressOf(i);
+
+            var result = listeners.preLogin(name, address);
+            if (result.state() == PreLoginState.DENIED) throw new IllegalStateException(name + " was denied: " + plainText(result.message()));
+
+            var user = plugin.getDatabaseProvider().getByName(name);
+            var player = new HeadlessPlayer(name, address.getHostAddress(), user.getUuid());
+
+            plugin.connect(player);
+            listeners.postLogin(player, null);
+
+            var server = listeners.chooseInitialServer(player, null);
+            if (server.value() == null || server.key()) throw new IllegalStateException(name + " did not join the limbo");
+
+            joined.add(player);
+        }
+
+        return joined;
+    }
+
+    private void outcome(Throwable throwable) {
+        var cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        String outcome;
+
+        if (cause == null) {
+            outcome = "logged in";
+        } else if (cause instanceof InvalidCommandArgument argument) {
+            outcome = "failed: " + plainText(argument.getUserFuckUp());
+        } else {
+            outcome = "failed: " + cause;
+        }
+
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    private static String plainText(Component component) {
+        if (component == null) return "no reason";
+
+        var builder = new StringBuilder();
+        ComponentFlattener.basic().flatten(component, builder::append);
+        return builder.toString().replace('\n', ' ');
+    }
+
+    /**
+     * @return A distinct address for each player, so only the total size of the hashing queue limits the logins
+     */
+    private static InetAddress addressOf(int index) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[]{10, (byte) (index >> 16), (byte) (index >> 8), (byte) index});
+    }
+
+    private static Object parseValue(String value) {
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) return Boolean.parseBoolean(value);
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ignored) {
+        }
+
+        return value;
+    }
+
+    /**
+     * Submits an empty task to the executor every millisecond, and keeps how long each one waited to run.
+     */
+    private class ExecutorProbe implements Runnable {
+
+        private long[] waits = new long[1024];
+        private int count;
+        private int maximumThreads;
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                var submitted = System.nanoTime();
+
+                try {
+                    plugin.getExecutor().submit(() -> {}).get();
+                    record(System.nanoTime() - submitted);
+
+                    if (plugin.getExecutor() instanceof ForkJoinPool pool) {
+                        synchronized (this) {
+                            maximumThreads = Math.max(maximumThreads, pool.getPoolSize());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+
+        private synchronized void record(long nanos) {
+            if (count == waits.length) waits = Arrays.copyOf(waits, count * 2);
+            waits[count++] = nanos;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized int maximumThreads() {
+            return maximumThreads;
+        }
+
+        /**
+         * @return The wait at the percentile in milliseconds
+         */
+        synchronized double percentile(double percentile) {
+            if (count == 0) return 0;
+
+            var sorted = Arrays.copyOf(waits, count);
+            Arrays.sort(sorted);
+
+            var index = (int) Math.max(0, Math.min(count - 1, Math.ceil(percentile * count) - 1));
+            return sorted[index] / 1e6;
+        }
+
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local stand-in for the Mojang API, the Mojang session server and PlayerDB, which answers in the same format as the originals.
+ * <p>
+ * Each request waits for the configured latency, and fails with the configured probability, like the real APIs do during a join wave.
+ */
+public class MockMojangServer implements AutoCloseable {
+
+    private static final Gson GSON = new Gson();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Profile> profilesByName;
+    private final Map<UUID, Profile> profilesByUUID;
+    private final long latencyMillis;
+    private final double failureRate;
+    private final AtomicLong requests;
+    private final AtomicLong failures;
+
+    /**
+     * @param latencyMillis The amount of milliseconds each request waits before it's answered
+     * @param failureRate   The share of requests answered with a server error, between 0 and 1
+     */
+    public MockMojangServer(long latencyMillis, double failureRate) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+        this.profilesByName = new ConcurrentHashMap<>();
+        this.profilesByUUID = new ConcurrentHashMap<>();
+        this.requests = new AtomicLong();
+        this.failures = new AtomicLong();
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/users/profiles/minecraft/", exchange -> handle(exchange, () -> {
+            var profile = profilesByName.get(lastSegment(exchange).toLowerCase());
+            return profile == null ? new Response(404, null) : new Response(200, profile.toMojang());
+        }));
+        server.createContext("/minecraft/profile/lookup/bulk/byname", exchange -> handle(exchange, () -> {
+            var names = GSON.fromJson(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), String[].class);
+            var profiles = new JsonArray();
+
+            for (var name : names) {
+                var profile = profilesByName.get(name.toLowerCase());
+                if (profile != null) profiles.add(profile.toMojangJson());
+            }
+
+            return new Response(200, profiles.toString());
+        }));
+        server.createContext("/session/minecraft/profile/", exchange -> handle(exchange, () -> {
+            Profile profile;
+
+            try {
+                profile = profilesByUUID.get(UUID.fromString(lastSegment(exchange)));
+            } catch (IllegalArgumentException e) {
+                return new Response(400, null);
+            }
+
+            return profile == null ? new Response(204, null) : new Response(200, profile.toMojang());
+        }));
+        server.createContext("/api/player/minecraft/", exchange -> handle(exchange, () -> {
+            var profile = profilesByName.get(lastSegment(exchange).toLowerCase());
+            return profile == null ? new Response(400, "{\"code\":\"minecraft.invalid_username\"}") : new Response(200, profile.toPlayerDB());
+        }));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return The URL all the APIs are available at, for the "premium.urls" section of the configuration
+     */
+    public String getUrl() {
+        var address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    public void addProfile(String name, UUID uuid) {
+        var profile = new Profile(name, uuid);
+        profilesByName.put(name.toLowerCase(), profile);
+        profilesByUUID.put(uuid, profile);
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    private void handle(HttpExchange exchange, ResponseSupplier supplier) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+
+            if (latencyMillis > 0) {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            var response = failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate
+                    ? new Response(500, "{\"error\":\"Internal Server Error\"}")
+                    : supplier.get();
+
+            if (response.status() >= 500) failures.incrementAndGet();
+
+            if (response.body() == null) {
+                exchange.sendResponseHeaders(response.status(), -1);
+                return;
+            }
+
+            var body = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.status(), body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private static String lastSegment(HttpExchange exchange) {
+        var path = exchange.getRequestURI().getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private interface ResponseSupplier {
+        Response get() throws IOException;
+    }
+
+    private record Response(int status, String body) {
+    }
+
+    private record Profile(String name, UUID uuid) {
+
+        String toMojang() {
+            return toMojangJson().toString();
+        }
+
+        JsonObject toMojangJson() {
+            var json = new JsonObject();
+            json.addProperty("id", uuid.toString().replace("-", ""));
+            json.addProperty("name", name);
+            return json;
+        }
+
+        String toPlayerDB() {
+            var player = new JsonObject();
+            player.addProperty("id", uuid.toString());
+            player.addProperty("username", name);
+
+            var data = new JsonObject();
+            data.add("player", player);
+
+            var json = new JsonObject();
+            json.addProperty("code", "player.found");
+            json.add("data", data);
+            json.addProperty("success", true);
+            return json.toString();
+        }
+
+    }
+
+}
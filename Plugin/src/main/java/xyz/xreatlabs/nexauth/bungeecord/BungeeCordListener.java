@@ -16,7 +16,6 @@ import net.md_5.bungee.event.EventPriority;
 import xyz.xreatlabs.nexauth.api.event.exception.EventCancelledException;
 import xyz.xreatlabs.nexauth.common.config.ConfigurationKeys;
 import xyz.xreatlabs.nexauth.common.listener.AuthenticListeners;
-import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
 
 import java.lang.reflect.Field;
 import java.util.NoSuchElementException;
@@ -33,7 +32,7 @@ public class BungeeCordListener extends AuthenticListeners<BungeeCordNexAuth, Pr
     public void runAsyncEvent(AsyncEvent<?> event, Runnable runnable) {
         event.registerIntent(plugin.getBootstrap());
 
-        GeneralUtil.ASYNC_POOL.execute(() -> {
+        plugin.getExecutor().execute(() -> {
             try {
                 runnable.run();
             } finally {
@@ -43,18 +43,23 @@ import xyz.xreatlabs.nexauth.common.config.HoconMessages;
 import xyz.xreatlabs.nexauth.common.config.HoconPluginConfiguration;
 import xyz.xreatlabs.nexauth.common.crypto.Argon2IDCryptoProvider;
 import xyz.xreatlabs.nexauth.common.crypto.BCrypt2ACryptoProvider;
+import xyz.xreatlabs.nexauth.common.crypto.HashingScheduler;
 import xyz.xreatlabs.nexauth.common.crypto.LogITMessageDigestCryptoProvider;
 import xyz.xreatlabs.nexauth.common.crypto.MessageDigestCryptoProvider;
 import xyz.xreatlabs.nexauth.common.database.AuthenticDatabaseProvider;
 import xyz.xreatlabs.nexauth.common.database.AuthenticUser;
+import xyz.xreatlabs.nexauth.common.database.CachingDatabaseProvider;
+import xyz.xreatlabs.nexauth.common.database.DatabaseHealth;
 import xyz.xreatlabs.nexauth.common.database.connector.AuthenticMySQLDatabaseConnector;
 import xyz.xreatlabs.nexauth.common.database.connector.AuthenticPostgreSQLDatabaseConnector;
+import xyz.xreatlabs.nexauth.common.database.connector.AuthenticSQLDatabaseConnector;
 import xyz.xreatlabs.nexauth.common.database.connector.AuthenticSQLiteDatabaseConnector;
 import xyz.xreatlabs.nexauth.common.database.connector.DatabaseConnectorRegistration;
 import xyz.xreatlabs.nexauth.common.database.provider.NexAuthMySQLDatabaseProvider;
 import xyz.xreatlabs.nexauth.common.database.provider.NexAuthPostgreSQLDatabaseProvider;
 import xyz.xreatlabs.nexauth.common.database.provider.NexAuthSQLiteDatabaseProvider;
 import xyz.xreatlabs.nexauth.common.event.AuthenticEventProvider;
+import xyz.xreatlabs.nexauth.common.http.HttpService;
 import xyz.xreatlabs.nexauth.common.image.AuthenticImageProjector;
 import xyz.xreatlabs.nexauth.common.integration.FloodgateIntegration;
 import xyz.xreatlabs.nexauth.common.integration.luckperms.LuckPermsIntegration;
@@ -66,19 +71,25 @@ import xyz.xreatlabs.nexauth.common.migrate.*;
 import xyz.xreatlabs.nexauth.common.premium.AuthenticPremiumProvider;
 import xyz.xreatlabs.nexauth.common.server.AuthenticServerHandler;
 import xyz.xreatlabs.nexauth.common.totp.AuthenticTOTPProvider;
+import xyz.xreatlabs.nexauth.common.util.Bulkhead;
 import xyz.xreatlabs.nexauth.common.util.CancellableTask;
 import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
 
 import java.io.*;
-import java.net.URL;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.*;
 
@@ -113,6 +124,12 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
     private CommandProvider<P, S> commandProvider;
     private ReadWriteDatabaseProvider databaseProvider;
     private DatabaseConnector<?, ?> databaseConnector;
+    private ExecutorService databaseExecutor;
+    private Bulkhead mojangBulkhead;
+    private Bulkhead smtpBulkhead;
+    private HttpService httpService;
+    private HashingScheduler hashingScheduler;
+    private ExecutorService executor = EXECUTOR;
     private AuthenticEMailHandler eMailHandler;
     private LoginTryListener<P, S> loginTryListener;
 
@@ -199,6 +216,40 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
         return databaseProvider;
     }
 
+    public Bulkhead getMojangBulkhead() {
+        return mojangBulkhead;
+    }
+
+    public Bulkhead getSmtpBulkhead() {
+        return smtpBulkhead;
+    }
+
+    public HttpService getHttpService() {
+        return httpService;
+    }
+
+    public HashingScheduler getHashingScheduler() {
+        return hashingScheduler;
+    }
+
+    /**
+     * @return The executor running commands and blocking event handlers, {@link #EXECUTOR} unless virtual threads are enabled
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return The executor dedicated to asynchronous database operations
+     */
+    public ExecutorService getDatabaseExecutor() {
+        return databaseExecutor;
+    }
+
+    public DatabaseHealth getDatabaseHealth() {
+        return databaseConnector instanceof AuthenticSQLDatabaseConnector casted ? casted.getHealth() : DatabaseHealth.HEALTHY;
+    }
+
     @Override
     public AuthenticPremiumProvider getPremiumProvider() {
         return premiumProvider;
@@ -262,7 +313,6 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
         }
 
         eventProvider = new AuthenticEventProvider<>(this);
-        premiumProvider = new AuthenticPremiumProvider(this);
 
         registerCryptoProvider(new MessageDigestCryptoProvider("SHA-256"));
         registerCryptoProvider(new MessageDigestCryptoProvider("SHA-512"));
@@ -276,6 +326,15 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
 
         loadConfigs();
 
+        setupExecutors();
+
+        setupCrypto();
+
+        httpService = new HttpService(this);
+
+        premiumProvider = new AuthenticPremiumProvider(this);
+        premiumProvider.enable();
+
         logger.info("Loading forbidden passwords...");
 
         try {
@@ -312,7 +371,9 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
         eMailHandler = configuration.get(MAIL_ENABLED) ? new AuthenticEMailHandler(this) : null;
 
         authorizationProvider = new AuthenticAuthorizationProvider<>(this);
-        commandProvider = new CommandProvider<>(this);
+        var manager = provideManager();
+        // Headless platforms, like the benchmarks, have no command manager and call the commands directly
+        commandProvider = manager == null ? null : new CommandProvider<>(this, manager);
 
         if (version.dev()) {
             logger.warn("!! YOU ARE RUNNING A DEVELOPMENT BUILD OF NEXAUTH !!");
@@ -342,9 +403,58 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
         return (DatabaseConnectorRegistration<?, C>) databaseConnectors.get(clazz);
     }
 
+    private void setupExecutors() {
+        if (configuration.get(EXECUTOR_VIRTUAL_THREADS)) {
+            logger.info("Using virtual threads for blocking operations");
+
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+
+        mojangBulkhead = new Bulkhead("the Mojang API", configuration.get(EXECUTOR_LIMIT_MOJANG));
+        smtpBulkhead = new Bulkhead("the SMTP server", configuration.get(EXECUTOR_LIMIT_SMTP));
+        hashingScheduler = new HashingScheduler(configuration.get(HASHING_THREADS), configuration.get(HASHING_QUEUE_SIZE), configuration.get(HASHING_MAXIMUM_PER_SOURCE));
+    }
+
+    private void setupCrypto() {
+        var argon2 = (Argon2IDCryptoProvider) getCryptoProvider("Argon-2ID");
+        var bcrypt = (BCrypt2ACryptoProvider) getCryptoProvider("BCrypt-2A");
+
+        try {
+            argon2.setParameters(configuration.get(CRYPTO_ARGON2_MEMORY), configuration.get(CRYPTO_ARGON2_ITERATIONS));
+            bcrypt.setCost(configuration.get(CRYPTO_BCRYPT_COST));
+        } catch (IllegalArgumentException e) {
+            logger.error("!! THIS IS MOST LIKELY NOT AN ERROR CAUSED BY NEXAUTH !!");
+            logger.error("!!The crypto section of the configuration is invalid: %s".formatted(e.getMessage()));
+            shutdownProxy(1);
+        }
+
+        var target = configuration.get(CRYPTO_CALIBRATION_TARGET);
+
+        if (target > 0) {
+            logger.info("Calibrating password hashing to %dms...".formatted(target));
+
+            var iterations = argon2.calibrate(target);
+            var cost = bcrypt.calibrate(target);
+
+            logger.info("Calibrated password hashing: Argon-2ID with %d KiB and %d iterations, BCrypt-2A with cost %d".formatted(argon2.getMemory(), iterations, cost));
+        }
+    }
+
     private void connectToDB() {
         logger.info("Connecting to the database...");
 
+        if (configuration.get(EXECUTOR_VIRTUAL_THREADS)) {
+            // The amount of concurrent queries is limited by the bulkhead of the connector instead
+            databaseExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("NexAuth Database #", 1).factory());
+        } else {
+            var threadCount = new AtomicInteger();
+            databaseExecutor = Executors.newFixedThreadPool(Math.max(1, configuration.get(DATABASE_ASYNC_THREADS)), runnable -> {
+                var thread = new Thread(runnable, "NexAuth Database #" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
         try {
             var registration = readProviders.get(configuration.get(DATABASE_TYPE));
             if (registration == null) {
@@ -400,6 +510,14 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
 
             logger.info("Schema validated");
         }
+
+        if (configuration.get(DATABASE_CACHE_ENABLED)) {
+            if (multiProxyEnabled()) {
+                logger.info("MultiProxy detected, users will not be cached");
+            } else {
+                databaseProvider = new CachingDatabaseProvider(databaseProvider, this);
+            }
+        }
     }
 
     private void loadConfigs() {
@@ -591,17 +709,17 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
 
         if (!file.exists()) {
             logger.info("Forbidden passwords list doesn't exist, downloading...");
-            try (BufferedInputStream in = new BufferedInputStream(new URL("https://raw.githubusercontent.com/Xreatlabs/NexAuth/refs/heads/master/forbidden-passwords.txt").openStream())) {
-                if (!file.createNewFile()) {
-                    throw new IOException("Failed to create file");
-                }
-                try (var fos = new FileOutputStream(file)) {
-                    var dataBuffer = new byte[1024];
-                    int bytesRead;
-                    while ((bytesRead = in.read(dataBuffer, 0, 1024)) != -1) {
-                        fos.write(dataBuffer, 0, bytesRead);
-                    }
+            try {
+                var response = httpService.send(
+                        httpService.newRequest("https://raw.githubusercontent.com/Xreatlabs/NexAuth/refs/heads/master/forbidden-passwords.txt").build(),
+                        HttpResponse.BodyHandlers.ofByteArray()
+                );
+
+                if (response.statusCode() != 200) {
+                    throw new IOException("Unexpected response code " + response.statusCode());
                 }
+
+                Files.write(file.toPath(), response.body());
                 logger.info("Successfully downloaded forbidden passwords list");
             } catch (IOException e) {
                 e.printStackTrace();
@@ -702,124 +820,114 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
     }
 
     private UpdateInfo checkGitHubAPI() throws Exception {
-        var connection = new URL("https://api.github.com/repos/Xreatlabs/NexAuth/releases").openConnection();
-        connection.setRequestProperty("User-Agent", "NexAuth/%s".formatted(getVersion()));
-        connection.setRequestProperty("Accept", "application/vnd.github.v3+json");
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(10000);
-
-        try (var in = connection.getInputStream()) {
-            var root = GSON.fromJson(new InputStreamReader(in), JsonArray.class);
-            
-            List<Release> releases = new ArrayList<>();
-            SemanticVersion latest = null;
+        var content = fetchUpdateSource(httpService.newRequest("https://api.github.com/repos/Xreatlabs/NexAuth/releases").header("Accept", "application/vnd.github.v3+json"));
 
-            for (JsonElement raw : root) {
-                var release = raw.getAsJsonObject();
-                
-                // Skip pre-releases and drafts
-                if (release.get("prerelease").getAsBoolean() || release.get("draft").getAsBoolean()) {
-                    continue;
-                }
-                
-                var version = SemanticVersion.parse(release.get("tag_name").getAsString());
-                var name = release.get("name").getAsString();
-                
-                releases.add(new Release(version, name));
-                
-                if (latest == null) {
-                    latest = version;
-                }
-            }
+        var root = GSON.fromJson(content, JsonArray.class);
+        
+        List<Release> releases = new ArrayList<>();
+        SemanticVersion latest = null;
 
-            return new UpdateInfo(latest, releases);
+        for (JsonElement raw : root) {
+            var release = raw.getAsJsonObject();
+            
+            // Skip pre-releases and drafts
+            if (release.get("prerelease").getAsBoolean() || release.get("draft").getAsBoolean()) {
+                continue;
+            }
+            
+            var version = SemanticVersion.parse(release.get("tag_name").getAsString());
+            var name = release.get("name").getAsString();
+            
+            releases.add(new Release(version, name));
+            
+            if (latest == null) {
+                latest = version;
+            }
         }
+
+        return new UpdateInfo(latest, releases);
     }
 
     private UpdateInfo checkGitHubRSSFeed() throws Exception {
-        var connection = new URL("https://github.com/Xreatlabs/NexAuth/releases.atom").openConnection();
-        connection.setRequestProperty("User-Agent", "NexAuth/%s".formatted(getVersion()));
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(10000);
+        var content = fetchUpdateSource(httpService.newRequest("https://github.com/Xreatlabs/NexAuth/releases.atom"));
 
-        try (var in = connection.getInputStream()) {
-            var content = new String(in.readAllBytes());
-            
-            // Simple regex parsing for RSS feed
-            var pattern = java.util.regex.Pattern.compile("<title>([^<]+)</title>");
-            var matcher = pattern.matcher(content);
-            
-            List<Release> releases = new ArrayList<>();
-            SemanticVersion latest = null;
-            
-            while (matcher.find()) {
-                var title = matcher.group(1);
-                if (title.contains("NexAuth") && !title.equals("Release notes from NexAuth")) {
-                    try {
-                        // Extract version from title
-                        var versionPattern = java.util.regex.Pattern.compile("v?([0-9]+\\.[0-9]+\\.[0-9]+(?:-[a-zA-Z0-9]+)?)");
-                        var versionMatcher = versionPattern.matcher(title);
+        // Simple regex parsing for RSS feed
+        var pattern = java.util.regex.Pattern.compile("<title>([^<]+)</title>");
+        var matcher = pattern.matcher(content);
+        
+        List<Release> releases = new ArrayList<>();
+        SemanticVersion latest = null;
+        
+        while (matcher.find()) {
+            var title = matcher.group(1);
+            if (title.contains("NexAuth") && !title.equals("Release notes from NexAuth")) {
+                try {
+                    // Extract version from title
+                    var versionPattern = java.util.regex.Pattern.compile("v?([0-9]+\\.[0-9]+\\.[0-9]+(?:-[a-zA-Z0-9]+)?)");
+                    var versionMatcher = versionPattern.matcher(title);
+                    
+                    if (versionMatcher.find()) {
+                        var version = SemanticVersion.parse(versionMatcher.group(1));
+                        releases.add(new Release(version, title));
                         
-                        if (versionMatcher.find()) {
-                            var version = SemanticVersion.parse(versionMatcher.group(1));
-                            releases.add(new Release(version, title));
-                            
-                            if (latest == null) {
-                                latest = version;
-                            }
+                        if (latest == null) {
+                            latest = version;
                         }
-                    } catch (Exception e) {
-                        // Skip invalid versions
                     }
+                } catch (Exception e) {
+                    // Skip invalid versions
                 }
             }
-            
-            if (latest != null) {
-                return new UpdateInfo(latest, releases);
-            }
+        }
+        
+        if (latest != null) {
+            return new UpdateInfo(latest, releases);
         }
         
         throw new Exception("No valid releases found in RSS feed");
     }
 
     private UpdateInfo checkGitHubReleasesPage() throws Exception {
-        var connection = new URL("https://github.com/Xreatlabs/NexAuth/releases").openConnection();
-        connection.setRequestProperty("User-Agent", "NexAuth/%s".formatted(getVersion()));
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(10000);
+        var content = fetchUpdateSource(httpService.newRequest("https://github.com/Xreatlabs/NexAuth/releases"));
 
-        try (var in = connection.getInputStream()) {
-            var content = new String(in.readAllBytes());
-            
-            // Parse HTML for release tags
-            var pattern = java.util.regex.Pattern.compile("href=\"/Xreatlabs/NexAuth/releases/tag/([^\"]+)\"");
-            var matcher = pattern.matcher(content);
-            
-            List<Release> releases = new ArrayList<>();
-            SemanticVersion latest = null;
-            
-            while (matcher.find()) {
-                try {
-                    var tagName = matcher.group(1);
-                    var version = SemanticVersion.parse(tagName);
-                    releases.add(new Release(version, "NexAuth " + tagName));
-                    
-                    if (latest == null) {
-                        latest = version;
-                    }
-                } catch (Exception e) {
-                    // Skip invalid versions
+        // Parse HTML for release tags
+        var pattern = java.util.regex.Pattern.compile("href=\"/Xreatlabs/NexAuth/releases/tag/([^\"]+)\"");
+        var matcher = pattern.matcher(content);
+        
+        List<Release> releases = new ArrayList<>();
+        SemanticVersion latest = null;
+        
+        while (matcher.find()) {
+            try {
+                var tagName = matcher.group(1);
+                var version = SemanticVersion.parse(tagName);
+                releases.add(new Release(version, "NexAuth " + tagName));
+                
+                if (latest == null) {
+                    latest = version;
                 }
+            } catch (Exception e) {
+                // Skip invalid versions
             }
-            
-            if (latest != null) {
-                return new UpdateInfo(latest, releases);
-            }
+        }
+        
+        if (latest != null) {
+            return new UpdateInfo(latest, releases);
         }
         
         throw new Exception("No valid releases found on releases page");
     }
 
+    private String fetchUpdateSource(HttpRequest.Builder request) throws IOException {
+        var response = httpService.send(request.timeout(Duration.ofSeconds(10)).build(), HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected response code " + response.statusCode());
+        }
+
+        return response.body();
+    }
+
     private record UpdateInfo(SemanticVersion latest, List<Release> allReleases) {
     }
 
@@ -832,6 +940,25 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
     }
 
     protected void disable() {
+        if (databaseExecutor != null) {
+            databaseExecutor.shutdown();
+            try {
+                // Let the queued asynchronous operations finish, before disconnecting
+                if (!databaseExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    logger.warn("Some asynchronous database operations did not finish in time, ignoring...");
+                }
+            } catch (InterruptedException ignored) {
+            }
+        }
+        if (databaseProvider instanceof CachingDatabaseProvider casted) {
+            try {
+                // Do not write from the main thread
+                GeneralUtil.runAsync(casted::close).toCompletableFuture().get(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                e.printStackTrace();
+                logger.error("Failed to write pending updates to the database, ignoring...");
+            }
+        }
         if (databaseConnector != null) {
             try {
                 databaseConnector.disconnect();
@@ -840,9 +967,21 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
                 logger.error("Failed to disconnect from database, ignoring...");
             }
         }
+        if (premiumProvider != null) {
+            premiumProvider.disable();
+        }
         if (luckpermsApi != null) {
             luckpermsApi.disable();
         }
+        if (httpService != null) {
+            httpService.close();
+        }
+        if (hashingScheduler != null) {
+            hashingScheduler.close();
+        }
+        if (executor != EXECUTOR) {
+            executor.shutdown();
+        }
     }
 
     @Override
@@ -868,6 +1007,10 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
 
     protected abstract Logger provideLogger();
 
+    /**
+     * @return The command manager of the platform, or null if the platform has no commands
+     */
+    @Nullable
     public abstract CommandManager<?, ?, ?, ?, ?, ?> provideManager();
 
     public abstract P getPlayerFromIssuer(CommandIssuer issuer);
@@ -919,6 +1062,11 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
 
     @Override
     public void migrate(ReadDatabaseProvider from, WriteDatabaseProvider to) {
+        if (from instanceof StreamingSQLMigrateReadProvider streaming) {
+            new StreamingMigration(this, streaming, to).run();
+            return;
+        }
+
         logger.info("Reading data...");
         var users = from.getAllUsers();
         logger.info("Data read, inserting into database...");
@@ -939,11 +1087,17 @@ public abstract class AuthenticNexAuth<P, S> implements NexAuthPlugin<P, S> {
         if (configuration.get(REMEMBER_LAST_SERVER)) {
             var server = platformHandle.getPlayersServerName(player);
             if (server == null) return;
-            var user = databaseProvider.getByUUID(platformHandle.getUUIDForPlayer(player));
-            if (user != null && !getConfiguration().get(LIMBO).contains(server)) {
-                user.setLastServer(server);
-                databaseProvider.updateUser(user);
-            }
+            if (getConfiguration().get(LIMBO).contains(server)) return;
+            databaseProvider.getByUUIDAsync(platformHandle.getUUIDForPlayer(player))
+                    .thenAccept(user -> {
+                        if (user == null) return;
+                        user.setLastServer(server);
+                        databaseProvider.updateUser(user);
+                    })
+                    .exceptionally(e -> {
+                        logger.error("Failed to save the last server of a player", e);
+                        return null;
+                    });
         }
     }
 
@@ -10,6 +10,7 @@ import co.aikar.commands.BaseCommand;
 import co.aikar.commands.MessageKeys;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.TextComponent;
+import org.jetbrains.annotations.Nullable;
 import xyz.xreatlabs.nexauth.api.Logger;
 import xyz.xreatlabs.nexauth.api.configuration.Messages;
 import xyz.xreatlabs.nexauth.api.crypto.CryptoProvider;
@@ -18,9 +19,14 @@ import xyz.xreatlabs.nexauth.api.database.ReadWriteDatabaseProvider;
 import xyz.xreatlabs.nexauth.api.database.User;
 import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 import xyz.xreatlabs.nexauth.common.authorization.AuthenticAuthorizationProvider;
+import xyz.xreatlabs.nexauth.common.crypto.HashingRejectedException;
 import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class Command<P> extends BaseCommand {
 
@@ -60,8 +66,53 @@ public class Command<P> extends BaseCommand {
         return plugin.getCryptoProvider(password.algo());
     }
 
+    /**
+     * Verifies the password on the hashing threads, the player's IP address shares the hashing capacity fairly with the others.
+     */
+    protected CompletionStage<Boolean> matches(P player, User user, CryptoProvider crypto, String password, HashedPassword hashed) {
+        return hash(getHashingSource(player, user), () -> crypto.matches(password, hashed));
+    }
+
+    /**
+     * Queues the hashing operation, the returned stage continues on the executor once it's done, no thread waits for it in the meantime.
+     *
+     * @throws InvalidCommandArgument If the hashing queue, or the share of the source, is full
+     */
+    protected <T> CompletionStage<T> hash(Object source, Supplier<T> operation) {
+        try {
+            return plugin.getHashingScheduler().submit(source, operation).thenApplyAsync(Function.identity(), plugin.getExecutor());
+        } catch (HashingRejectedException e) {
+            throw new InvalidCommandArgument(getMessage("error-throttle"));
+        }
+    }
+
+    protected Object getHashingSource(P player, User user) {
+        var ip = player == null ? null : plugin.getPlatformHandle().getIP(player);
+        return ip == null ? user.getUuid() : ip;
+    }
+
     public CompletionStage<Void> runAsync(Runnable runnable) {
-        return GeneralUtil.runAsync(runnable);
+        return GeneralUtil.runAsync(plugin.getExecutor(), runnable);
+    }
+
+    /**
+     * Same as {@link #runAsync(Runnable)}, for commands which continue after a stage, such as a hash, completes.
+     * The command completes with the stage, and exceptions thrown by its steps reach the sender unwrapped.
+     */
+    public CompletionStage<Void> composeAsync(Supplier<? extends CompletionStage<?>> command) {
+        var future = new CompletableFuture<Void>();
+
+        runAsync(() -> command.get().whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+            }
+        })).whenComplete((result, throwable) -> {
+            if (throwable != null) future.completeExceptionally(throwable);
+        });
+
+        return future;
     }
 
     protected User getUser(P player) {
@@ -75,7 +126,12 @@ public class Command<P> extends BaseCommand {
         return plugin.getDatabaseProvider().getByUUID(uuid);
     }
 
-    protected void setPassword(Audience sender, User user, String password, String messageKey) {
+    /**
+     * Hashes the new password on the hashing threads, sharing the capacity of the player's IP address, or of the user if a staff member or the console sets it.
+     *
+     * @return The stage completed once the password of the user has been set
+     */
+    protected CompletionStage<Void> setPassword(Audience sender, @Nullable P player, User user, String password, String messageKey) {
         if (!plugin.validPassword(password))
             throw new InvalidCommandArgument(getMessage("error-forbidden-password"));
 
@@ -83,13 +139,13 @@ public class Command<P> extends BaseCommand {
 
         var defaultProvider = plugin.getDefaultCryptoProvider();
 
-        var hash = defaultProvider.createHash(password);
-
-        if (hash == null) {
-            throw new InvalidCommandArgument(getMessage("error-password-too-long"));
-        }
+        return hash(getHashingSource(player, user), () -> defaultProvider.createHash(password)).thenAccept(hash -> {
+            if (hash == null) {
+                throw new InvalidCommandArgument(getMessage("error-password-too-long"));
+            }
 
-        user.setHashedPassword(hash);
+            user.setHashedPassword(hash);
+        });
     }
 
 }
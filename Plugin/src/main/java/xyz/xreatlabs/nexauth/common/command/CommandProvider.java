@@ -43,12 +43,12 @@ public class CommandProvider<P, S> extends AuthenticHandler<P, S> {
     private final RateLimiter<UUID> limiter;
     private final Cache<UUID, Object> confirmCache;
 
-    public CommandProvider(AuthenticNexAuth<P, S> plugin) {
+    public CommandProvider(AuthenticNexAuth<P, S> plugin, CommandManager<?, ?, ?, ?, ?, ?> manager) {
         super(plugin);
 
         limiter = new RateLimiter<>(1, TimeUnit.SECONDS);
 
-        manager = plugin.provideManager();
+        this.manager = manager;
 
         injectMessages();
 
@@ -27,7 +27,7 @@ public class ChangePasswordCommand<P> extends Command<P> {
     @Syntax("{@@syntax.change-password}")
     @CommandCompletion("%autocomplete.change-password")
     public CompletionStage<Void> onPasswordChange(Audience sender, P player, String oldPass, @Single String newPass) {
-        return runAsync(() -> {
+        return composeAsync(() -> {
             var user = getUser(player);
 
             if (!user.isRegistered()) {
@@ -37,20 +37,22 @@ public class ChangePasswordCommand<P> extends Command<P> {
             var hashed = user.getHashedPassword();
             var crypto = getCrypto(hashed);
 
-            if (!crypto.matches(oldPass, hashed)) {
-                plugin.getEventProvider()
-                        .unsafeFire(plugin.getEventTypes().wrongPassword,
-                                new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.CHANGE_PASSWORD));
-                throw new InvalidCommandArgument(getMessage("error-password-wrong"));
-            }
-
-            setPassword(sender, user, newPass, "info-editing");
+            return matches(player, user, crypto, oldPass, hashed).thenCompose(matches -> {
+                if (!matches) {
+                    plugin.getEventProvider()
+                            .unsafeFire(plugin.getEventTypes().wrongPassword,
+                                    new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.CHANGE_PASSWORD));
+                    throw new InvalidCommandArgument(getMessage("error-password-wrong"));
+                }
 
-            getDatabaseProvider().updateUser(user);
+                return setPassword(sender, player, user, newPass, "info-editing");
+            }).thenRun(() -> {
+                getDatabaseProvider().updateUser(user);
 
-            sender.sendMessage(getMessage("info-edited"));
+                sender.sendMessage(getMessage("info-edited"));
 
-            plugin.getEventProvider().unsafeFire(plugin.getEventTypes().passwordChange, new AuthenticPasswordChangeEvent<>(user, player, plugin, hashed));
+                plugin.getEventProvider().unsafeFire(plugin.getEventTypes().passwordChange, new AuthenticPasswordChangeEvent<>(user, player, plugin, hashed));
+            });
         });
     }
 
@@ -8,10 +8,14 @@ package xyz.xreatlabs.nexauth.common.command.commands.authorization;
 
 import co.aikar.commands.annotation.*;
 import net.kyori.adventure.audience.Audience;
+import xyz.xreatlabs.nexauth.api.crypto.CryptoProvider;
+import xyz.xreatlabs.nexauth.api.database.User;
 import xyz.xreatlabs.nexauth.api.event.events.AuthenticatedEvent;
 import xyz.xreatlabs.nexauth.api.event.events.WrongPasswordEvent.AuthenticationSource;
 import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 import xyz.xreatlabs.nexauth.common.command.InvalidCommandArgument;
+import xyz.xreatlabs.nexauth.common.config.ConfigurationKeys;
+import xyz.xreatlabs.nexauth.common.crypto.HashingRejectedException;
 import xyz.xreatlabs.nexauth.common.event.events.AuthenticWrongPasswordEvent;
 
 import java.util.concurrent.CompletionStage;
@@ -27,7 +31,7 @@ public class LoginCommand<P> extends AuthorizationCommand<P> {
     @Syntax("{@@syntax.login}")
     @CommandCompletion("%autocomplete.login")
     public CompletionStage<Void> onLogin(Audience sender, P player, @Single String password, @Optional String code) {
-        return runAsync(() -> {
+        return composeAsync(() -> {
             checkUnauthorized(player);
             var user = getUser(player);
             if (!user.isRegistered()) throw new InvalidCommandArgument(getMessage("error-not-registered"));
@@ -39,41 +43,76 @@ public class LoginCommand<P> extends AuthorizationCommand<P> {
 
             if (crypto == null) throw new InvalidCommandArgument(getMessage("error-password-corrupted"));
 
-            if (!crypto.matches(password, hashed)) {
-                plugin.getEventProvider()
-                        .unsafeFire(plugin.getEventTypes().wrongPassword,
-                                new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.LOGIN));
-                throw new InvalidCommandArgument(getMessage("error-password-wrong"));
-            }
+            return matches(player, user, crypto, password, hashed).thenAccept(matches -> {
+                if (!matches) {
+                    plugin.getEventProvider()
+                            .unsafeFire(plugin.getEventTypes().wrongPassword,
+                                    new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.LOGIN));
+                    throw new InvalidCommandArgument(getMessage("error-password-wrong"));
+                }
 
-            var secret = user.getSecret();
+                var secret = user.getSecret();
 
-            if (secret != null) {
-                var totp = plugin.getTOTPProvider();
+                if (secret != null) {
+                    var totp = plugin.getTOTPProvider();
 
-                if (totp != null) {
-                    if (code == null) throw new InvalidCommandArgument(getMessage("totp-not-provided"));
+                    if (totp != null) {
+                        if (code == null) throw new InvalidCommandArgument(getMessage("totp-not-provided"));
 
-                    int parsedCode;
+                        int parsedCode;
 
-                    try {
-                        parsedCode = Integer.parseInt(code.trim().replace(" ", ""));
-                    } catch (NumberFormatException e) {
-                        throw new InvalidCommandArgument(getMessage("totp-wrong"));
-                    }
+                        try {
+                            parsedCode = Integer.parseInt(code.trim().replace(" ", ""));
+                        } catch (NumberFormatException e) {
+                            throw new InvalidCommandArgument(getMessage("totp-wrong"));
+                        }
 
-                    if (!totp.verify(parsedCode, secret)) {
-                        plugin.getEventProvider()
-                                .unsafeFire(plugin.getEventTypes().wrongPassword,
-                                        new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.TOTP));
-                        throw new InvalidCommandArgument(getMessage("totp-wrong"));
+                        if (!totp.verify(parsedCode, secret)) {
+                            plugin.getEventProvider()
+                                    .unsafeFire(plugin.getEventTypes().wrongPassword,
+                                            new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.TOTP));
+                            throw new InvalidCommandArgument(getMessage("totp-wrong"));
+                        }
                     }
                 }
-            }
 
-            sender.sendMessage(getMessage("info-logged-in"));
-            getAuthorizationProvider().authorize(user, player, AuthenticatedEvent.AuthenticationReason.LOGIN);
+                sender.sendMessage(getMessage("info-logged-in"));
+                getAuthorizationProvider().authorize(user, player, AuthenticatedEvent.AuthenticationReason.LOGIN);
+
+                rehashIfOutdated(player, user, crypto, password);
+            });
         });
     }
 
+    /**
+     * Hashes the password again with the default provider in the background, if it was hashed by another provider or with different parameters.
+     * The login doesn't wait for the new hash, if the hashing queue is full, the password is hashed on a later login instead.
+     */
+    private void rehashIfOutdated(P player, User user, CryptoProvider crypto, String password) {
+        if (!plugin.getConfiguration().get(ConfigurationKeys.CRYPTO_REHASH_ON_LOGIN)) return;
+
+        var defaultProvider = plugin.getDefaultCryptoProvider();
+        var outdated = user.getHashedPassword();
+
+        if (crypto == defaultProvider && !crypto.needsRehash(outdated)) return;
+
+        try {
+            plugin.getHashingScheduler().submit(getHashingSource(player, user), () -> defaultProvider.createHash(password))
+                    .thenAcceptAsync(hash -> {
+                        // The password might have been changed in the meantime
+                        if (hash == null || !outdated.equals(user.getHashedPassword())) return;
+
+                        user.setHashedPassword(hash);
+                        getDatabaseProvider().updateUser(user);
+
+                        plugin.getLogger().debug("Rehashed the password of %s from %s to %s".formatted(user.getLastNickname(), crypto.getIdentifier(), defaultProvider.getIdentifier()));
+                    }, getDatabaseProvider().getAsyncExecutor())
+                    .exceptionally(e -> {
+                        plugin.getLogger().debug("Failed to rehash the password of %s: %s".formatted(user.getLastNickname(), e.getMessage()));
+                        return null;
+                    });
+        } catch (HashingRejectedException ignored) {
+        }
+    }
+
 }
@@ -11,6 +11,7 @@ import net.kyori.adventure.audience.Audience;
 import xyz.xreatlabs.nexauth.api.event.events.AuthenticatedEvent;
 import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 import xyz.xreatlabs.nexauth.common.command.InvalidCommandArgument;
+import xyz.xreatlabs.nexauth.common.database.DatabaseHealth;
 
 import java.util.concurrent.CompletionStage;
 
@@ -24,19 +25,21 @@ public class RegisterCommand<P> extends AuthorizationCommand<P> {
     @Syntax("{@@syntax.register}")
     @CommandCompletion("%autocomplete.register")
     public CompletionStage<Void> onRegister(Audience sender, P player, @Single String password, String passwordRepeat) {
-        return runAsync(() -> {
+        return composeAsync(() -> {
             checkUnauthorized(player);
             var user = getUser(player);
 
             if (user.isRegistered()) throw new InvalidCommandArgument(getMessage("error-already-registered"));
+            if (plugin.getDatabaseHealth() != DatabaseHealth.HEALTHY)
+                throw new InvalidCommandArgument(getMessage("error-database-unavailable"));
             if (!password.contentEquals(passwordRepeat))
                 throw new InvalidCommandArgument(getMessage("error-password-not-match"));
 
-            setPassword(sender, user, password, "info-registering");
+            return setPassword(sender, player, user, password, "info-registering").thenRun(() -> {
+                sender.sendMessage(getMessage("info-registered"));
 
-            sender.sendMessage(getMessage("info-registered"));
-
-            getAuthorizationProvider().authorize(user, player, AuthenticatedEvent.AuthenticationReason.REGISTER);
+                getAuthorizationProvider().authorize(user, player, AuthenticatedEvent.AuthenticationReason.REGISTER);
+            });
         });
     }
 
@@ -24,7 +24,7 @@ public class ConfirmPasswordReset<P> extends EMailCommand<P> {
     @Syntax("{@@syntax.confirm-password-reset}")
     @CommandCompletion("%autocomplete.confirm-password-reset")
     public CompletionStage<Void> onConfirmPassReset(Audience audience, P player, String token, String password, @Single String passwordRepeat) {
-        return runAsync(() -> {
+        return composeAsync(() -> {
             var user = getUser(player);
 
             var cached = plugin.getAuthorizationProvider().getPasswordResetCache().getIfPresent(user.getUuid());
@@ -39,13 +39,14 @@ public class ConfirmPasswordReset<P> extends EMailCommand<P> {
             }
 
             var old = user.getHashedPassword();
-            setPassword(audience, user, password, "info-resetting-password");
 
-            plugin.getAuthorizationProvider().getPasswordResetCache().invalidate(user.getUuid());
-            getDatabaseProvider().updateUser(user);
-            audience.sendMessage(getMessage("info-password-reset"));
+            return setPassword(audience, player, user, password, "info-resetting-password").thenRun(() -> {
+                plugin.getAuthorizationProvider().getPasswordResetCache().invalidate(user.getUuid());
+                getDatabaseProvider().updateUser(user);
+                audience.sendMessage(getMessage("info-password-reset"));
 
-            plugin.getEventProvider().unsafeFire(plugin.getEventTypes().passwordChange, new AuthenticPasswordChangeEvent<>(user, player, plugin, old));
+                plugin.getEventProvider().unsafeFire(plugin.getEventTypes().passwordChange, new AuthenticPasswordChangeEvent<>(user, player, plugin, old));
+            });
         });
     }
 
@@ -34,39 +34,41 @@ public class SetEMailCommand<P> extends EMailCommand<P> {
     @Syntax("{@@syntax.set-email}")
     @CommandCompletion("%autocomplete.set-email")
     public CompletionStage<Void> onSetMail(Audience sender, P player, UUID uuid, String mail, @Single String password) {
-        return runAsync(() -> {
+        return composeAsync(() -> {
             var user = getUser(player);
 
             var hashed = user.getHashedPassword();
             var crypto = getCrypto(hashed);
 
-            if (!crypto.matches(password, hashed)) {
-                plugin.getEventProvider()
-                        .unsafeFire(plugin.getEventTypes().wrongPassword,
-                                new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.SET_EMAIL));
-                throw new InvalidCommandArgument(getMessage("error-password-wrong"));
-            }
+            return matches(player, user, crypto, password, hashed).thenAccept(matches -> {
+                if (!matches) {
+                    plugin.getEventProvider()
+                            .unsafeFire(plugin.getEventTypes().wrongPassword,
+                                    new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.SET_EMAIL));
+                    throw new InvalidCommandArgument(getMessage("error-password-wrong"));
+                }
 
-            if (limiter.tryAndLimit(uuid)) {
-                throw new InvalidCommandArgument(getMessage("error-mail-throttle"));
-            }
+                if (limiter.tryAndLimit(uuid)) {
+                    throw new InvalidCommandArgument(getMessage("error-mail-throttle"));
+                }
 
-            var token = GeneralUtil.generateAlphanumericText(16);
+                var token = GeneralUtil.generateAlphanumericText(16);
 
-            sender.sendMessage(getMessage("info-mail-sending"));
+                sender.sendMessage(getMessage("info-mail-sending"));
 
-            try {
-                mailHandler.sendVerificationMail(mail, token, user.getLastNickname());
-                getAuthorizationProvider().getEmailConfirmCache().put(uuid, new AuthenticAuthorizationProvider.EmailVerifyData(mail, token, uuid));
-            } catch (Exception e) {
-                if (plugin.getConfiguration().get(ConfigurationKeys.DEBUG)) {
-                    getLogger().debug("Cannot send verification mail to " + mail + " for " + player);
-                    e.printStackTrace();
+                try {
+                    mailHandler.sendVerificationMail(mail, token, user.getLastNickname());
+                    getAuthorizationProvider().getEmailConfirmCache().put(uuid, new AuthenticAuthorizationProvider.EmailVerifyData(mail, token, uuid));
+                } catch (Exception e) {
+                    if (plugin.getConfiguration().get(ConfigurationKeys.DEBUG)) {
+                        getLogger().debug("Cannot send verification mail to " + mail + " for " + player);
+                        e.printStackTrace();
+                    }
+                    throw new InvalidCommandArgument(getMessage("error-mail-not-sent"));
                 }
-                throw new InvalidCommandArgument(getMessage("error-mail-not-sent"));
-            }
 
-            sender.sendMessage(getMessage("info-verification-mail-sent"));
+                sender.sendMessage(getMessage("info-verification-mail-sent"));
+            });
         });
     }
 }
@@ -27,23 +27,25 @@ public class PremiumEnableCommand<P> extends PremiumCommand<P> {
     @Syntax("{@@syntax.premium}")
     @CommandCompletion("%autocomplete.premium")
     public CompletionStage<Void> onPremium(Audience sender, UUID uuid, P player, @Single String password) {
-        return runAsync(() -> {
+        return composeAsync(() -> {
             var user = getUser(player);
             checkCracked(user);
 
             var hashed = user.getHashedPassword();
             var crypto = getCrypto(hashed);
 
-            if (!crypto.matches(password, hashed)) {
-                plugin.getEventProvider()
-                        .unsafeFire(plugin.getEventTypes().wrongPassword,
-                                new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.PREMIUM_ENABLE));
-                throw new InvalidCommandArgument(getMessage("error-password-wrong"));
-            }
+            return matches(player, user, crypto, password, hashed).thenAccept(matches -> {
+                if (!matches) {
+                    plugin.getEventProvider()
+                            .unsafeFire(plugin.getEventTypes().wrongPassword,
+                                    new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.PREMIUM_ENABLE));
+                    throw new InvalidCommandArgument(getMessage("error-password-wrong"));
+                }
 
-            plugin.getCommandProvider().registerConfirm(uuid);
+                plugin.getCommandProvider().registerConfirm(uuid);
 
-            sender.sendMessage(getMessage("prompt-confirm"));
+                sender.sendMessage(getMessage("prompt-confirm"));
+            });
         });
     }
 
@@ -19,6 +19,7 @@ import xyz.xreatlabs.nexauth.common.database.AuthenticUser;
 import xyz.xreatlabs.nexauth.common.event.events.AuthenticPasswordChangeEvent;
 import xyz.xreatlabs.nexauth.common.event.events.AuthenticPremiumLoginSwitchEvent;
 import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
+import xyz.xreatlabs.nexauth.common.util.LatencyHistogram;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -142,6 +143,54 @@ public class NexAuthCommand<P> extends StaffCommand<P> {
 
             dump.add("server", server);
 
+            var premium = new JsonObject();
+            var premiumProvider = plugin.getPremiumProvider();
+
+            premium.addProperty("inFlightLookups", premiumProvider.getInFlightLookups());
+            premium.addProperty("coalescedLookups", premiumProvider.getCoalescedLookups());
+
+            var fetchers = new JsonObject();
+
+            for (var fetcher : premiumProvider.getFetchers()) {
+                var api = new JsonObject();
+
+                api.addProperty("requests", fetcher.getRequests());
+                api.addProperty("errors", fetcher.getErrors());
+                api.addProperty("errorRate", fetcher.getErrorRate());
+                api.addProperty("latencyP50", fetcher.getLatencyPercentile(0.5));
+                api.addProperty("latencyP95", fetcher.getLatencyPercentile(0.95));
+
+                var bucket = fetcher.getRateLimit();
+
+                if (bucket != null) {
+                    var rateLimit = new JsonObject();
+
+                    rateLimit.addProperty("capacity", bucket.getCapacity());
+                    rateLimit.addProperty("available", bucket.getAvailable());
+                    rateLimit.addProperty("waiting", bucket.getWaiting());
+                    rateLimit.addProperty("rejected", bucket.getRejected());
+
+                    api.add("rateLimit", rateLimit);
+                }
+
+                fetchers.add(fetcher.getName(), api);
+            }
+
+            premium.add("fetchers", fetchers);
+
+            dump.add("premium", premium);
+
+            var hashingScheduler = plugin.getHashingScheduler();
+            var hashing = new JsonObject();
+
+            hashing.addProperty("queued", hashingScheduler.getQueued());
+            hashing.addProperty("active", hashingScheduler.getActive());
+            hashing.addProperty("rejected", hashingScheduler.getRejected());
+            hashing.add("wait", toJson(hashingScheduler.getWaitLatency()));
+            hashing.add("hash", toJson(hashingScheduler.getHashLatency()));
+
+            dump.add("hashing", hashing);
+
             try (var writer = new FileWriter(dumpFile)) {
                 writer.write(GSON.toJson(dump));
             } catch (IOException e) {
@@ -153,6 +202,16 @@ public class NexAuthCommand<P> extends StaffCommand<P> {
         });
     }
 
+    private static JsonObject toJson(LatencyHistogram histogram) {
+        var json = new JsonObject();
+
+        json.addProperty("count", histogram.getCount());
+        json.addProperty("meanMillis", histogram.getMean());
+        json.add("buckets", GSON.toJsonTree(histogram.getBuckets()));
+
+        return json;
+    }
+
     @Subcommand("reload configuration")
     @CommandPermission("librepremium.reload.configuration")
     public CompletionStage<Void> onReloadConfiguration(Audience audience) {
@@ -356,38 +415,36 @@ public class NexAuthCommand<P> extends StaffCommand<P> {
     @Syntax("{@@syntax.user-register}")
     @CommandCompletion("%autocomplete.user-register")
     public CompletionStage<Void> onUserRegister(Audience audience, String name, String password) {
-        return runAsync(() -> {
+        return composeAsync(() -> {
             audience.sendMessage(getMessage("info-registering"));
 
-            var user = getDatabaseProvider().getByName(name);
-
-            if (user != null) {
+            if (getDatabaseProvider().getByName(name) != null) {
                 throw new InvalidCommandArgument(getMessage("error-occupied-user"));
             }
 
-            var hashedPassword = plugin.getDefaultCryptoProvider().createHash(password);
+            return hash(name.toLowerCase(), () -> plugin.getDefaultCryptoProvider().createHash(password)).thenAccept(hashedPassword -> {
+                if (hashedPassword == null) {
+                    throw new InvalidCommandArgument(getMessage("error-password-too-long"));
+                }
+                var premiumUser = plugin.getUserOrThrowICA(name);
+                var user = new AuthenticUser(
+                        plugin.generateNewUUID(name, premiumUser == null ? null : premiumUser.uuid()),
+                        null,
+                        hashedPassword,
+                        name,
+                        Timestamp.valueOf(LocalDateTime.now()),
+                        Timestamp.valueOf(LocalDateTime.now()),
+                        null,
+                        null,
+                        Timestamp.valueOf(LocalDateTime.now()),
+                        null,
+                        null
+                );
 
-            if (hashedPassword == null) {
-                throw new InvalidCommandArgument(getMessage("error-password-too-long"));
-            }
-            var premiumUser = plugin.getUserOrThrowICA(name);
-            user = new AuthenticUser(
-                    plugin.generateNewUUID(name, premiumUser == null ? null : premiumUser.uuid()),
-                    null,
-                    hashedPassword,
-                    name,
-                    Timestamp.valueOf(LocalDateTime.now()),
-                    Timestamp.valueOf(LocalDateTime.now()),
-                    null,
-                    null,
-                    Timestamp.valueOf(LocalDateTime.now()),
-                    null,
-                    null
-            );
-
-            getDatabaseProvider().insertUser(user);
-
-            audience.sendMessage(getMessage("info-registered"));
+                getDatabaseProvider().insertUser(user);
+
+                audience.sendMessage(getMessage("info-registered"));
+            });
         });
     }
 
@@ -470,17 +527,17 @@ public class NexAuthCommand<P> extends StaffCommand<P> {
     @Syntax("{@@syntax.user-pass-change}")
     @CommandCompletion("%autocomplete.user-pass-change")
     public CompletionStage<Void> onUserPasswordChange(Audience audience, String name, String password) {
-        return runAsync(() -> {
+        return composeAsync(() -> {
             var user = getUserOtherWiseInform(name);
             var old = user.getHashedPassword();
 
-            setPassword(audience, user, password, "info-editing");
+            return setPassword(audience, null, user, password, "info-editing").thenRun(() -> {
+                getDatabaseProvider().updateUser(user);
 
-            getDatabaseProvider().updateUser(user);
-
-            audience.sendMessage(getMessage("info-edited"));
+                audience.sendMessage(getMessage("info-edited"));
 
-            plugin.getEventProvider().unsafeFire(plugin.getEventTypes().passwordChange, new AuthenticPasswordChangeEvent<>(user, null, plugin, old));
+                plugin.getEventProvider().unsafeFire(plugin.getEventTypes().passwordChange, new AuthenticPasswordChangeEvent<>(user, null, plugin, old));
+            });
         });
     }
 
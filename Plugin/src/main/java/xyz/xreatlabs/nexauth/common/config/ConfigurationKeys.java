@@ -208,6 +208,470 @@ public class ConfigurationKeys {
             ConfigurateHelper::getString
     );
 
+    public static final ConfigurationKey<Integer> DATABASE_ASYNC_THREADS = new ConfigurationKey<>(
+            "database.async-threads",
+            10,
+            """
+                    The amount of threads dedicated to asynchronous database operations.
+                    These are separate from the threads handling commands, so slow queries cannot delay them.
+                    """,
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_REPLICA_STICKINESS = new ConfigurationKey<>(
+            "database.replica-stickiness",
+            5000,
+            """
+                    The amount of milliseconds after writing a user, during which the user is read from the primary database instead of the replicas.
+                    Should be higher than the replication lag of your replicas. Only used when the connector has replicas configured.
+                    """,
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<?> DATABASE_RESILIENCE = ConfigurationKey.getComment(
+            "database.resilience",
+            """
+                    This section configures how we handle losing the connection to the database.
+                    Obtaining a connection is retried, and after too many failures in a row, the database is considered down and queries are refused for a while.
+                    While the database is down, only cached users can join and new registrations are refused.
+                    """
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_RESILIENCE_RETRIES = new ConfigurationKey<>(
+            "database.resilience.retries",
+            2,
+            "The amount of times obtaining a connection is retried after failing to reach the database. Queries which lose the connection midway are not retried.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_RESILIENCE_RETRY_DELAY = new ConfigurationKey<>(
+            "database.resilience.retry-delay",
+            250,
+            "The amount of milliseconds to wait before the first retry, doubled for each following one.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_RESILIENCE_FAILURE_THRESHOLD = new ConfigurationKey<>(
+            "database.resilience.failure-threshold",
+            5,
+            "The amount of queries failing in a row, after which the database is considered down.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_RESILIENCE_OPEN_DURATION = new ConfigurationKey<>(
+            "database.resilience.open-duration",
+            10000,
+            "The amount of milliseconds to refuse queries for, once the database is considered down. After that, a single query tests the connection.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<?> DATABASE_CACHE = ConfigurationKey.getComment(
+            "database.cache",
+            """
+                    This section configures the user cache in front of the database.
+                    Recently used users are kept in memory, and frequent updates (last seen, last server, IP, last authentication) are written to the database in batches.
+                    The cache is always disabled when MultiProxy is detected, as other proxies could modify the users.
+                    """
+    );
+
+    public static final ConfigurationKey<Boolean> DATABASE_CACHE_ENABLED = new ConfigurationKey<>(
+            "database.cache.enabled",
+            true,
+            "Should we cache users in memory?",
+            ConfigurateHelper::getBoolean
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_CACHE_MAXIMUM_SIZE = new ConfigurationKey<>(
+            "database.cache.maximum-size",
+            10000,
+            "The maximum amount of users kept in the cache.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_CACHE_EXPIRE_AFTER_ACCESS = new ConfigurationKey<>(
+            "database.cache.expire-after-access",
+            30,
+            "The amount of minutes after which an unused user is removed from the cache.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_CACHE_WRITE_BEHIND_INTERVAL = new ConfigurationKey<>(
+            "database.cache.write-behind-interval",
+            5000,
+            """
+                    The amount of milliseconds between writing the batched updates to the database.
+                    Set to zero or less to write all updates immediately.
+                    """,
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<?> EXECUTOR = ConfigurationKey.getComment(
+            "executor",
+            """
+                    This section configures the threads performing blocking work, like database queries, Mojang API requests and sending emails.
+                    """
+    );
+
+    public static final ConfigurationKey<Boolean> EXECUTOR_VIRTUAL_THREADS = new ConfigurationKey<>(
+            "executor.virtual-threads",
+            false,
+            "Should we run blocking work on virtual threads, instead of a small fixed pool?",
+            ConfigurateHelper::getBoolean
+    );
+
+    public static final ConfigurationKey<?> EXECUTOR_LIMIT = ConfigurationKey.getComment(
+            "executor.limit",
+            """
+                    The maximum amount of concurrent calls to each service. Set to zero or less for no limit.
+                    These keep one slow service from occupying the threads needed by the others.
+                    """
+    );
+
+    public static final ConfigurationKey<Integer> EXECUTOR_LIMIT_DATABASE = new ConfigurationKey<>(
+            "executor.limit.database",
+            10,
+            "The maximum amount of concurrent database queries.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> EXECUTOR_LIMIT_MOJANG = new ConfigurationKey<>(
+            "executor.limit.mojang",
+            8,
+            "The maximum amount of concurrent requests to the Mojang API, or its alternatives.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> EXECUTOR_LIMIT_SMTP = new ConfigurationKey<>(
+            "executor.limit.smtp",
+            2,
+            "The maximum amount of emails sent at once.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<?> HASHING = ConfigurationKey.getComment(
+            "hashing",
+            """
+                    This section configures the threads hashing passwords. Hashing with Argon2 is expensive, so the amount of passwords hashed at once is limited.
+                    Requests over the limits are rejected immediately, the player is asked to try again later.
+                    """
+    );
+
+    public static final ConfigurationKey<Integer> HASHING_THREADS = new ConfigurationKey<>(
+            "hashing.threads",
+            0,
+            "The amount of threads hashing passwords. Set to 0 to use one thread per CPU core.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> HASHING_QUEUE_SIZE = new ConfigurationKey<>(
+            "hashing.queue-size",
+            64,
+            "The maximum amount of passwords waiting to be hashed.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> HASHING_MAXIMUM_PER_SOURCE = new ConfigurationKey<>(
+            "hashing.maximum-per-source",
+            2,
+            "The maximum amount of passwords hashed or waiting for a single IP address.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<?> CRYPTO = ConfigurationKey.getComment(
+            "crypto",
+            """
+                    This section configures the cost of hashing passwords. Higher costs make cracking leaked hashes harder, but limit the amount of logins per second.
+                    Passwords hashed with different parameters, or with another provider than the default one, are hashed again when the player logs in.
+                    """
+    );
+
+    public static final ConfigurationKey<Integer> CRYPTO_ARGON2_MEMORY = new ConfigurationKey<>(
+            "crypto.argon2.memory",
+            16384,
+            "The memory used by a single Argon-2ID hash in KiB. Keep in mind that each hashing thread needs this memory.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> CRYPTO_ARGON2_ITERATIONS = new ConfigurationKey<>(
+            "crypto.argon2.iterations",
+            2,
+            "The amount of passes over the memory of an Argon-2ID hash. Ignored if the calibration is enabled.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> CRYPTO_BCRYPT_COST = new ConfigurationKey<>(
+            "crypto.bcrypt.cost",
+            10,
+            "The cost of a BCrypt-2A hash, each step doubles the time needed. Ignored if the calibration is enabled.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> CRYPTO_CALIBRATION_TARGET = new ConfigurationKey<>(
+            "crypto.calibration-target",
+            0,
+            """
+                    The time in milliseconds a single hash should take on this machine. On startup, the highest Argon-2ID iterations and BCrypt-2A cost within this time are chosen.
+                    Set to 0 to disable the calibration and use the parameters above. The calibration adds a few seconds to the startup.
+                    With the calibration, passwords are only rehashed if their hash is weaker than the chosen parameters, so proxies sharing a database keep the stronger hashes of each other.
+                    """,
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Boolean> CRYPTO_REHASH_ON_LOGIN = new ConfigurationKey<>(
+            "crypto.rehash-on-login",
+            true,
+            "Whether to hash the password again on login, if it was hashed with different parameters or another provider than the default one.",
+            ConfigurateHelper::getBoolean
+    );
+
+    public static final ConfigurationKey<?> HTTP = ConfigurationKey.getComment(
+            "http",
+            """
+                    This section configures the HTTP client used to contact the Mojang API, its alternatives and GitHub.
+                    Connections are kept alive and shared, so most requests don't need a new TLS handshake.
+                    """
+    );
+
+    public static final ConfigurationKey<Integer> HTTP_TIMEOUT = new ConfigurationKey<>(
+            "http.timeout",
+            5000,
+            "The amount of milliseconds to wait for a connection, or for a response.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> HTTP_MAXIMUM_REQUESTS_PER_HOST = new ConfigurationKey<>(
+            "http.maximum-requests-per-host",
+            16,
+            "The maximum amount of requests in flight to a single host, the rest waits in a queue. Set to 0 for no limit.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<?> PREMIUM = ConfigurationKey.getComment(
+            "premium",
+            """
+                    This section configures the lookups of premium accounts, using the Mojang API and its alternatives.
+                    """
+    );
+
+    public static final ConfigurationKey<Boolean> PREMIUM_HEDGING = new ConfigurationKey<>(
+            "premium.hedging",
+            true,
+            """
+                    Should we ask the next API, when the previous one takes longer than the hedge delay?
+                    The first answer is used. Without hedging, the next API is only asked after the previous one fails.
+                    """,
+            ConfigurateHelper::getBoolean
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_HEDGE_DELAY = new ConfigurationKey<>(
+            "premium.hedge-delay",
+            -1,
+            """
+                    The amount of milliseconds to wait for an API, before asking the next one.
+                    Set to -1 to use the 95th percentile of the recent response times of the API.
+                    """,
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<List<String>> PREMIUM_FETCHERS = new ConfigurationKey<>(
+            "premium.fetchers",
+            List.of("mojang", "playerdb", "minetools"),
+            """
+                    The APIs used to look up premium accounts, the first one is preferred. Remove an API to stop using it.
+                    Available APIs: mojang, playerdb, minetools, ashcon (unreliable) and local.
+                    local looks up the names in premium-mirror.txt, which contains one "name;uuid" per line. Names which are not in the file are not premium.
+                    This is useful for servers without internet access, or for load testing.
+                    """,
+            ConfigurateHelper::getStringList
+    );
+
+    public static final ConfigurationKey<?> PREMIUM_URLS = ConfigurationKey.getComment(
+            "premium.urls",
+            """
+                    The base URLs of the APIs. Change these to use an internal mirror, which must answer in the same format as the original API.
+                    """
+    );
+
+    public static final ConfigurationKey<String> PREMIUM_URLS_MOJANG = new ConfigurationKey<>(
+            "premium.urls.mojang",
+            "https://api.mojang.com",
+            "The Mojang API, used to look up single names.",
+            ConfigurateHelper::getString
+    );
+
+    public static final ConfigurationKey<String> PREMIUM_URLS_MOJANG_BULK = new ConfigurationKey<>(
+            "premium.urls.mojang-bulk",
+            "https://api.minecraftservices.com",
+            "The Mojang API, used to look up multiple names at once.",
+            ConfigurateHelper::getString
+    );
+
+    public static final ConfigurationKey<String> PREMIUM_URLS_SESSION = new ConfigurationKey<>(
+            "premium.urls.session",
+            "https://sessionserver.mojang.com",
+            "The Mojang session server, used to look up names by UUID. Verification of joining players always uses the real session server.",
+            ConfigurateHelper::getString
+    );
+
+    public static final ConfigurationKey<String> PREMIUM_URLS_PLAYERDB = new ConfigurationKey<>(
+            "premium.urls.playerdb",
+            "https://playerdb.co",
+            "PlayerDB.",
+            ConfigurateHelper::getString
+    );
+
+    public static final ConfigurationKey<String> PREMIUM_URLS_MINETOOLS = new ConfigurationKey<>(
+            "premium.urls.minetools",
+            "https://api.minetools.eu",
+            "Minetools.",
+            ConfigurateHelper::getString
+    );
+
+    public static final ConfigurationKey<String> PREMIUM_URLS_ASHCON = new ConfigurationKey<>(
+            "premium.urls.ashcon",
+            "https://api.ashcon.app",
+            "Ashcon.",
+            ConfigurateHelper::getString
+    );
+
+    public static final ConfigurationKey<Boolean> PREMIUM_BATCHING = new ConfigurationKey<>(
+            "premium.batching",
+            true,
+            """
+                    Should we combine the lookups of players joining at the same time into bulk requests to the Mojang API?
+                    A single request resolves up to 10 names, which keeps us under the rate limit during join waves.
+                    """,
+            ConfigurateHelper::getBoolean
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_BATCHING_WINDOW = new ConfigurationKey<>(
+            "premium.batching-window",
+            20,
+            "The amount of milliseconds to wait for more players, before sending a bulk request.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<?> PREMIUM_RATE_LIMIT = ConfigurationKey.getComment(
+            "premium.rate-limit",
+            """
+                    The maximum amount of requests sent to each API within the period. Requests over the limit are sent to the next API instead.
+                    The Mojang API allows about 600 requests per 10 minutes, we stay a bit under it. Set an API to 0 for no limit.
+                    """
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_RATE_LIMIT_PERIOD = new ConfigurationKey<>(
+            "premium.rate-limit.period",
+            600,
+            "The period in seconds.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_RATE_LIMIT_MOJANG = new ConfigurationKey<>(
+            "premium.rate-limit.mojang",
+            540,
+            "The maximum amount of requests to the Mojang API within the period.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_RATE_LIMIT_PLAYERDB = new ConfigurationKey<>(
+            "premium.rate-limit.playerdb",
+            0,
+            "The maximum amount of requests to PlayerDB within the period.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_RATE_LIMIT_MINETOOLS = new ConfigurationKey<>(
+            "premium.rate-limit.minetools",
+            0,
+            "The maximum amount of requests to Minetools within the period.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_RATE_LIMIT_MAXIMUM_WAIT = new ConfigurationKey<>(
+            "premium.rate-limit.maximum-wait",
+            -1,
+            """
+                    The maximum amount of milliseconds a request may wait for the limit, before it's sent to the next API. This smooths out short bursts.
+                    Each waiting request waits one refill interval (period / limit, 1.1 seconds for the Mojang API by default) longer than the one before it,
+                    so at most maximum-wait / interval requests can wait, no matter the maximum-queue.
+                    Set to -1 to wait long enough for the whole queue to be served, but never longer than http.timeout.
+                    """,
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_RATE_LIMIT_MAXIMUM_QUEUE = new ConfigurationKey<>(
+            "premium.rate-limit.maximum-queue",
+            32,
+            "The maximum amount of requests waiting for the limit of a single API.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<?> PREMIUM_CACHE = ConfigurationKey.getComment(
+            "premium.cache",
+            """
+                    This section configures the cache of premium lookups.
+                    Caching the names without a premium account keeps bots joining with random names from exhausting the rate limit of the APIs.
+                    """
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_CACHE_MAXIMUM_SIZE = new ConfigurationKey<>(
+            "premium.cache.maximum-size",
+            10000,
+            "The maximum amount of names kept in the cache.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_CACHE_REFRESH_AFTER = new ConfigurationKey<>(
+            "premium.cache.refresh-after",
+            600,
+            """
+                    The amount of seconds after which a cached premium account is refreshed.
+                    The cached account is still used while the refresh runs in the background, or if it fails.
+                    """,
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_CACHE_EXPIRE_AFTER = new ConfigurationKey<>(
+            "premium.cache.expire-after",
+            21600,
+            """
+                    The amount of seconds after which a premium account is removed from the cache, if it could not be refreshed.
+                    An expired lookup is still used for another such period, but only when looking the name up again fails.
+                    """,
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_CACHE_NEGATIVE_EXPIRE_AFTER = new ConfigurationKey<>(
+            "premium.cache.negative-expire-after",
+            600,
+            "The amount of seconds a name without a premium account is cached for.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_CACHE_ERROR_EXPIRE_AFTER = new ConfigurationKey<>(
+            "premium.cache.error-expire-after",
+            10,
+            "The amount of seconds a failed lookup is cached for. Set to 0 to retry failed lookups on every join. Lookups refused by our own rate limit are never cached.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Boolean> PREMIUM_CACHE_PERSIST = new ConfigurationKey<>(
+            "premium.cache.persist",
+            true,
+            """
+                    Should we save the cache into the plugin folder, and load it on the next start?
+                    This avoids asking the APIs about every player reconnecting after a restart.
+                    """,
+            ConfigurateHelper::getBoolean
+    );
+
+    public static final ConfigurationKey<Integer> PREMIUM_CACHE_SAVE_INTERVAL = new ConfigurationKey<>(
+            "premium.cache.save-interval",
+            300,
+            "The amount of seconds between saving the cache. It is always saved on shutdown.",
+            ConfigurateHelper::getInt
+    );
+
     public static final ConfigurationKey<?> MIGRATION = ConfigurationKey.getComment(
             "migration",
             """
@@ -250,6 +714,23 @@ public class ConfigurationKeys {
             ConfigurateHelper::getString
     );
 
+    public static final ConfigurationKey<Integer> MIGRATION_CHUNK_SIZE = new ConfigurationKey<>(
+            "migration.chunk-size",
+            1000,
+            "The amount of users inserted into the new database at once.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> MIGRATION_PARALLELISM = new ConfigurationKey<>(
+            "migration.parallelism",
+            4,
+            """
+                    The amount of chunks inserted into the new database in parallel.
+                    Interrupted migrations are resumed from the last inserted chunk.
+                    """,
+            ConfigurateHelper::getInt
+    );
+
     public static final ConfigurationKey<String> MIGRATION_MYSQL_OLD_DATABASE_TABLE = new ConfigurationKey<>(
             "migration.old-database.mysql.table",
             "user-data",
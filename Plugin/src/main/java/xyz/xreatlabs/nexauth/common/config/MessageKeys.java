@@ -110,6 +110,13 @@ public class MessageKeys {
             ConfigurateHelper::getString
     );
 
+    public static final ConfigurationKey<String> KICK_DATABASE_UNAVAILABLE = new ConfigurationKey<>(
+            "kick-database-unavailable",
+            "We are experiencing database issues, please try joining again in a while!",
+            "This message is displayed when a player, who is not cached, or has not registered yet, joins while the database is unavailable.",
+            ConfigurateHelper::getString
+    );
+
     public static final ConfigurationKey<String> KICK_NO_LOBBY = new ConfigurationKey<>(
             "kick-no-lobby",
             "There's no available lobby to connect you to. Please try again later.",
@@ -184,6 +191,13 @@ public class MessageKeys {
             ConfigurateHelper::getString
     );
 
+    public static final ConfigurationKey<String> ERROR_DATABASE_UNAVAILABLE = new ConfigurationKey<>(
+            "error-database-unavailable",
+            "We are experiencing database issues, please try again in a while!",
+            "This message is displayed when the player tries to register while the database is unavailable.",
+            ConfigurateHelper::getString
+    );
+
     public static final ConfigurationKey<String> ERROR_NOT_AUTHORIZED = new ConfigurationKey<>(
             "error-not-authorized",
             "Please authorize first!",
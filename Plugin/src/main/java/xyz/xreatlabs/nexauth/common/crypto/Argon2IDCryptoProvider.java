@@ -6,6 +6,8 @@
 
 package xyz.xreatlabs.nexauth.common.crypto;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
 import org.bouncycastle.crypto.params.Argon2Parameters;
 import org.jetbrains.annotations.Nullable;
@@ -14,17 +16,83 @@ import xyz.xreatlabs.nexauth.api.crypto.CryptoProvider;
 import xyz.xreatlabs.nexauth.api.crypto.HashedPassword;
 import xyz.xreatlabs.nexauth.common.util.CryptoUtil;
 
+import java.security.MessageDigest;
 import java.security.SecureRandom;
-import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 public class Argon2IDCryptoProvider implements CryptoProvider {
 
+    public static final int DEFAULT_MEMORY = 1 << 14;
+    public static final int DEFAULT_ITERATIONS = 2;
+    // Argon2 needs at least 8 KiB per lane, the hashes use a single lane
+    private static final int MINIMUM_MEMORY = 8;
+    private static final int MAXIMUM_CALIBRATED_ITERATIONS = 16;
+
     private final Logger logger;
     private SecureRandom random;
+    private volatile int memory;
+    private volatile int iterations;
+    private volatile boolean calibrated;
+    // Saves decoding the stored hash again, when a player logs in repeatedly or the hash is checked for a rehash
+    private final Cache<HashedPassword, CryptoUtil.Argon2IDHashedPassword> parsed = Caffeine.newBuilder()
+            .maximumSize(1024)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
 
     public Argon2IDCryptoProvider(Logger logger) {
         this.logger = logger;
         random = new SecureRandom();
+        memory = DEFAULT_MEMORY;
+        iterations = DEFAULT_ITERATIONS;
+    }
+
+    /**
+     * @param memory     The memory used by a single hash in KiB, at least 8 KiB and at most the maximum heap size
+     * @param iterations The amount of passes over the memory, at least 1
+     * @throws IllegalArgumentException If a parameter is out of range
+     */
+    public void setParameters(int memory, int iterations) {
+        if (memory < MINIMUM_MEMORY)
+            throw new IllegalArgumentException("The Argon-2ID memory must be at least %d KiB, got %d".formatted(MINIMUM_MEMORY, memory));
+        if (memory * 1024L > Runtime.getRuntime().maxMemory())
+            throw new IllegalArgumentException("The Argon-2ID memory of %d KiB does not fit in the maximum heap size of %d KiB".formatted(memory, Runtime.getRuntime().maxMemory() / 1024));
+        if (iterations < 1)
+            throw new IllegalArgumentException("The Argon-2ID iterations must be at least 1, got %d".formatted(iterations));
+
+        this.memory = memory;
+        this.iterations = iterations;
+        this.calibrated = false;
+    }
+
+    /**
+     * Picks the highest amount of iterations, which hashes within the target on this machine. The memory is kept.
+     * <p>
+     * Each machine may pick a different amount, so afterward only hashes weaker than the chosen parameters need a rehash,
+     * otherwise proxies sharing a database would rehash each other's passwords back and forth.
+     *
+     * @param targetMillis The target duration of a single hash
+     * @return The chosen amount of iterations
+     */
+    public int calibrate(long targetMillis) {
+        var chosen = 1;
+
+        for (int candidate = 1; candidate <= MAXIMUM_CALIBRATED_ITERATIONS; candidate++) {
+            iterations = candidate;
+            if (CryptoUtil.measureMillis(() -> createHash("calibration")) > targetMillis) break;
+            chosen = candidate;
+        }
+
+        iterations = chosen;
+        calibrated = true;
+        return chosen;
+    }
+
+    public int getMemory() {
+        return memory;
+    }
+
+    public int getIterations() {
+        return iterations;
     }
 
     @Nullable
@@ -38,8 +106,8 @@ public class Argon2IDCryptoProvider implements CryptoProvider {
 
         var params = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
                 .withSalt(salt)
-                .withMemoryAsKB(1 << 14)
-                .withIterations(2)
+                .withMemoryAsKB(memory)
+                .withIterations(iterations)
                 .build();
 
         var generator = new Argon2BytesGenerator();
@@ -53,14 +121,27 @@ public class Argon2IDCryptoProvider implements CryptoProvider {
 
     @Override
     public boolean matches(String input, HashedPassword password) {
-        var params = CryptoUtil.rawArgonFromHashed(password);
+        var params = parsed.get(password, CryptoUtil::rawArgonFromHashed);
 
         var hashBytes = new byte[params.hash().length];
         var generator = new Argon2BytesGenerator();
         generator.init(params.parameters());
         generator.generateBytes(input.toCharArray(), hashBytes);
 
-        return Arrays.equals(hashBytes, params.hash());
+        return MessageDigest.isEqual(hashBytes, params.hash());
+    }
+
+    @Override
+    public boolean needsRehash(HashedPassword password) {
+        var parameters = parsed.get(password, CryptoUtil::rawArgonFromHashed).parameters();
+
+        if (calibrated) {
+            // Only rehash if the local parameters are at least as strong in both dimensions, so the rehash cannot be undone by another proxy
+            return parameters.getMemory() <= memory && parameters.getIterations() <= iterations
+                    && (parameters.getMemory() != memory || parameters.getIterations() != iterations);
+        }
+
+        return parameters.getMemory() != memory || parameters.getIterations() != iterations;
     }
 
     @Override
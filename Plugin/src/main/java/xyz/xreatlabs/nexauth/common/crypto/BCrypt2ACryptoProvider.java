@@ -7,11 +7,14 @@
 package xyz.xreatlabs.nexauth.common.crypto;
 
 import at.favre.lib.crypto.bcrypt.BCrypt;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import xyz.xreatlabs.nexauth.api.crypto.CryptoProvider;
 import xyz.xreatlabs.nexauth.api.crypto.HashedPassword;
 import xyz.xreatlabs.nexauth.common.util.CryptoUtil;
 
 import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
 
 public class BCrypt2ACryptoProvider implements CryptoProvider {
 
@@ -19,13 +22,63 @@ public class BCrypt2ACryptoProvider implements CryptoProvider {
             .with(BCrypt.Version.VERSION_2A);
     public static final BCrypt.Verifyer VERIFIER = BCrypt
             .verifyer(BCrypt.Version.VERSION_2A);
+    public static final int DEFAULT_COST = 10;
+    private static final int MINIMUM_COST = 4;
+    private static final int MAXIMUM_COST = 31;
+    private static final int MAXIMUM_CALIBRATED_COST = 16;
+
+    private volatile int cost = DEFAULT_COST;
+    private volatile boolean calibrated;
+    // Saves reassembling the modular crypt format when a player logs in repeatedly
+    private final Cache<HashedPassword, String> raw = Caffeine.newBuilder()
+            .maximumSize(1024)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * @param cost The logarithm of the amount of rounds, between 4 and 31
+     * @throws IllegalArgumentException If the cost is out of range
+     */
+    public void setCost(int cost) {
+        if (cost < MINIMUM_COST || cost > MAXIMUM_COST)
+            throw new IllegalArgumentException("The BCrypt-2A cost must be between %d and %d, got %d".formatted(MINIMUM_COST, MAXIMUM_COST, cost));
+
+        this.cost = cost;
+        this.calibrated = false;
+    }
+
+    /**
+     * Picks the highest cost, which hashes within the target on this machine. Each step doubles the duration.
+     * <p>
+     * Afterward, only hashes with a lower cost need a rehash, as another proxy sharing the database may have picked a higher one.
+     *
+     * @param targetMillis The target duration of a single hash
+     * @return The chosen cost
+     */
+    public int calibrate(long targetMillis) {
+        var chosen = MINIMUM_COST;
+
+        for (int candidate = MINIMUM_COST; candidate <= MAXIMUM_CALIBRATED_COST; candidate++) {
+            cost = candidate;
+            if (CryptoUtil.measureMillis(() -> createHash("calibration")) > targetMillis) break;
+            chosen = candidate;
+        }
+
+        cost = chosen;
+        calibrated = true;
+        return chosen;
+    }
+
+    public int getCost() {
+        return cost;
+    }
 
     @Override
     @Nullable
     public HashedPassword createHash(String password) {
         String hash;
         try {
-            hash = HASHER.hashToString(10, password.toCharArray());
+            hash = HASHER.hashToString(cost, password.toCharArray());
         } catch (IllegalArgumentException e) {
             return null;
         }
@@ -36,11 +89,10 @@ public class BCrypt2ACryptoProvider implements CryptoProvider {
 
     @Override
     public boolean matches(String input, HashedPassword password) {
-        var raw = CryptoUtil.rawBcryptFromHashed(password).toCharArray();
         BCrypt.Result result;
         try {
             result = VERIFIER.verify(input.toCharArray(),
-                    raw
+                    raw.get(password, CryptoUtil::rawBcryptFromHashed).toCharArray()
             );
         } catch (IllegalArgumentException e) {
             return false;
@@ -49,6 +101,17 @@ public class BCrypt2ACryptoProvider implements CryptoProvider {
         return result.verified;
     }
 
+    @Override
+    public boolean needsRehash(HashedPassword password) {
+        try {
+            var storedCost = Integer.parseInt(CryptoUtil.convertHash(password.hash()).key());
+
+            return calibrated ? storedCost < cost : storedCost != cost;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
     @Override
     public String getIdentifier() {
         return "BCrypt-2A";
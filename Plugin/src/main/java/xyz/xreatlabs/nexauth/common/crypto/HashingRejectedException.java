@@ -0,0 +1,18 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.crypto;
+
+/**
+ * Thrown when a password cannot be hashed right now, because too many passwords are being hashed already.
+ */
+public class HashingRejectedException extends IllegalStateException {
+
+    public HashingRejectedException(String message) {
+        super(message);
+    }
+
+}
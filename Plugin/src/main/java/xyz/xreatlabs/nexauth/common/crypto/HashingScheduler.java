@@ -0,0 +1,221 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.crypto;
+
+import xyz.xreatlabs.nexauth.common.util.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a fixed amount of threads, so a flood of logins cannot occupy the other executors, nor allocate unbounded memory for Argon2.
+ * <p>
+ * The queue is bounded, both in total and per source (an IP address or a player), and the sources take turns, so a single source cannot delay the others.
+ * Hashes over the limits are rejected immediately with {@link HashingRejectedException}, the callers chain onto the returned futures instead of waiting for them.
+ */
+public class HashingScheduler {
+
+    private final int maximumQueued;
+    private final int maximumPerSource;
+    private final ExecutorService workers;
+    private final Map<Object, Queue<Task<?>>> queues;
+    private final Queue<Object> turns;
+    private final Map<Object, Integer> sourceLoad;
+    private final LatencyHistogram waitLatency;
+    private final LatencyHistogram hashLatency;
+    private final LongAdder rejected;
+    private int queued;
+    private int active;
+    private boolean closed;
+
+    /**
+     * @param threads          The amount of threads, zero or less for one per available processor
+     * @param maximumQueued    The maximum amount of hashes waiting for a thread
+     * @param maximumPerSource The maximum amount of hashes waiting or running for a single source
+     */
+    public HashingScheduler(int threads, int maximumQueued, int maximumPerSource) {
+        this.maximumQueued = maximumQueued;
+        this.maximumPerSource = maximumPerSource;
+        this.queues = new HashMap<>();
+        this.turns = new ArrayDeque<>();
+        this.sourceLoad = new HashMap<>();
+        this.waitLatency = new LatencyHistogram();
+        this.hashLatency = new LatencyHistogram();
+        this.rejected = new LongAdder();
+
+        var threadCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        // Hashing is CPU bound, virtual threads would not help
+        workers = Executors.newFixedThreadPool(threadCount, Thread.ofPlatform().daemon().name("NexAuth Hashing #", 1).factory());
+
+        for (int i = 0; i < threadCount; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    /**
+     * Queues the hashing operation without waiting for it.
+     *
+     * @param source The source of the request, sources take turns
+     * @return A future completed with the result of the operation
+     * @throws HashingRejectedException If the queue, or the share of the source, is full
+     */
+    public <T> CompletableFuture<T> submit(Object source, Supplier<T> operation) {
+        var task = new Task<>(source, operation);
+
+        synchronized (this) {
+            if (closed) throw new HashingRejectedException("The hashing scheduler is closed");
+
+            var load = sourceLoad.getOrDefault(source, 0);
+
+            if (queued >= maximumQueued || load >= maximumPerSource) {
+                rejected.increment();
+                throw new HashingRejectedException("Too many passwords are being hashed");
+            }
+
+            sourceLoad.put(source, load + 1);
+
+            var queue = queues.get(source);
+
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queues.put(source, queue);
+                turns.add(source);
+            }
+
+            queue.add(task);
+            queued++;
+
+            notify();
+        }
+
+        return task.future;
+    }
+
+    private void work() {
+        while (true) {
+            Task<?> task;
+
+            synchronized (this) {
+                while (turns.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if (closed) return;
+
+                var source = turns.poll();
+                var queue = queues.get(source);
+
+                task = queue.poll();
+
+                if (queue.isEmpty()) {
+                    queues.remove(source);
+                } else {
+                    // The source waits for its next turn behind the others
+                    turns.add(source);
+                }
+
+                queued--;
+                active++;
+            }
+
+            task.run(waitLatency, hashLatency);
+
+            synchronized (this) {
+                active--;
+                sourceLoad.computeIfPresent(task.source, (key, load) -> load > 1 ? load - 1 : null);
+            }
+        }
+    }
+
+    public void close() {
+        synchronized (this) {
+            closed = true;
+
+            for (var queue : queues.values()) {
+                for (var task : queue) {
+                    task.future.completeExceptionally(new HashingRejectedException("The hashing scheduler is closed"));
+                }
+            }
+
+            queues.clear();
+            turns.clear();
+            queued = 0;
+
+            notifyAll();
+        }
+
+        workers.shutdown();
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    public synchronized int getActive() {
+        return active;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The time hashes spent waiting for a thread
+     */
+    public LatencyHistogram getWaitLatency() {
+        return waitLatency;
+    }
+
+    /**
+     * @return The time spent hashing
+     */
+    public LatencyHistogram getHashLatency() {
+        return hashLatency;
+    }
+
+    private static class Task<T> {
+
+        private final Object source;
+        private final Supplier<T> operation;
+        private final CompletableFuture<T> future;
+        private final long submitted;
+
+        private Task(Object source, Supplier<T> operation) {
+            this.source = source;
+            this.operation = operation;
+            this.future = new CompletableFuture<>();
+            this.submitted = System.nanoTime();
+        }
+
+        private void run(LatencyHistogram waitLatency, LatencyHistogram hashLatency) {
+            var start = System.nanoTime();
+            waitLatency.record((start - submitted) / 1_000_000);
+
+            try {
+                future.complete(operation.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                hashLatency.record((System.nanoTime() - start) / 1_000_000);
+            }
+        }
+
+    }
+
+}
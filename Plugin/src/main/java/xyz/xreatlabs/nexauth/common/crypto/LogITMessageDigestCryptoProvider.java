@@ -18,7 +18,7 @@ public class LogITMessageDigestCryptoProvider extends MessageDigestCryptoProvide
         var salt = password.salt();
         var hash = password.hash();
         var hashedInput = salt == null ? plainHash(input) : plainHash(input + salt);
-        return hashedInput.equals(hash);
+        return constantTimeEquals(hashedInput, hash);
     }
 
     @Override
@@ -13,11 +13,15 @@ import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.HexFormat;
 
 public class MessageDigestCryptoProvider implements CryptoProvider {
 
+    private static final HexFormat HEX = HexFormat.of();
+
     private final SecureRandom random;
-    private final MessageDigest sha256;
+    // MessageDigest is not thread-safe, and cloning it on every hash is wasteful
+    private final ThreadLocal<MessageDigest> digest;
     private final String identifier;
 
     public MessageDigestCryptoProvider(String identifier) {
@@ -30,7 +34,19 @@ public class MessageDigestCryptoProvider implements CryptoProvider {
         random = new SecureRandom();
 
         try {
-            sha256 = MessageDigest.getInstance(md);
+            var prototype = MessageDigest.getInstance(md);
+
+            digest = ThreadLocal.withInitial(() -> {
+                try {
+                    return (MessageDigest) prototype.clone();
+                } catch (CloneNotSupportedException e) {
+                    try {
+                        return MessageDigest.getInstance(md);
+                    } catch (NoSuchAlgorithmException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+            });
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
@@ -44,8 +60,25 @@ public class MessageDigestCryptoProvider implements CryptoProvider {
 
     protected String plainHash(String input) {
         byte[] inputBytes = input.getBytes();
-        byte[] hashedBytes = this.sha256.digest(inputBytes);
-        return String.format("%064x", new BigInteger(1, hashedBytes));
+        byte[] hashedBytes = digest.get().digest(inputBytes);
+        return toHex(hashedBytes);
+    }
+
+    /**
+     * Formats the bytes the same way as {@code String.format("%064x", new BigInteger(1, bytes))} did, so existing hashes still match.
+     * Leading zeros are dropped, as long as at least 64 digits remain.
+     */
+    private static String toHex(byte[] bytes) {
+        var hex = HEX.formatHex(bytes);
+        var start = 0;
+
+        while (start < hex.length() - 64 && hex.charAt(start) == '0') start++;
+
+        return hex.substring(start);
+    }
+
+    protected static boolean constantTimeEquals(String a, String b) {
+        return MessageDigest.isEqual(a.getBytes(), b.getBytes());
     }
 
     @Override
@@ -61,7 +94,7 @@ public class MessageDigestCryptoProvider implements CryptoProvider {
         var salt = password.salt();
         var hash = password.hash();
         var hashedInput = salt == null ? plainHash(input) : plainHash(plainHash(input) + salt);
-        return hashedInput.equals(hash);
+        return constantTimeEquals(hashedInput, hash);
     }
 
     @Override
@@ -10,6 +10,8 @@ import xyz.xreatlabs.nexauth.api.database.ReadWriteDatabaseProvider;
 import xyz.xreatlabs.nexauth.api.database.connector.DatabaseConnector;
 import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 
+import java.util.concurrent.Executor;
+
 public abstract class AuthenticDatabaseProvider<C extends DatabaseConnector<?, ?>> implements ReadWriteDatabaseProvider {
 
     protected final C connector;
@@ -20,6 +22,11 @@ public abstract class AuthenticDatabaseProvider<C extends DatabaseConnector<?, ?
         this.plugin = plugin;
     }
 
+    @Override
+    public Executor getAsyncExecutor() {
+        return plugin.getDatabaseExecutor();
+    }
+
     public void validateSchema() {
     }
 
@@ -15,6 +15,11 @@ import java.util.UUID;
 
 public class AuthenticUser implements User {
 
+    /**
+     * Mask of all the fields, which can be modified.
+     */
+    public static final int ALL_FIELDS = (1 << Field.values().length) - 1;
+
     private final UUID uuid;
     private UUID premiumUUID;
     private HashedPassword hashedPassword;
@@ -26,6 +31,7 @@ public class AuthenticUser implements User {
     private Timestamp lastAuthentication;
     private String lastServer;
     private String email;
+    private int dirtyFields;
 
     public AuthenticUser(UUID uuid, UUID premiumUUID, HashedPassword hashedPassword, String lastNickname, Timestamp joinDate, Timestamp lastSeen, String secret, String ip, Timestamp lastAuthentication, String lastServer, String email) {
         this.uuid = uuid;
@@ -39,6 +45,31 @@ public class AuthenticUser implements User {
         this.lastAuthentication = lastAuthentication;
         this.lastServer = lastServer;
         this.email = email;
+        // We don't know whether this user is stored, so everything has to be written
+        this.dirtyFields = ALL_FIELDS;
+    }
+
+    /**
+     * Creates a copy of the given user, the copy has no modified fields.
+     */
+    public AuthenticUser(User user) {
+        this(user.getUuid(), user.getPremiumUUID(), user.getHashedPassword(), user.getLastNickname(), user.getJoinDate(), user.getLastSeen(), user.getSecret(), user.getIp(), user.getLastAuthentication(), user.getLastServer(), user.getEmail());
+        this.dirtyFields = 0;
+    }
+
+    /**
+     * @return Mask of the fields modified since the user was last read from, or written to the database
+     */
+    public int getDirtyFields() {
+        return dirtyFields;
+    }
+
+    public void markDirty(int fields) {
+        dirtyFields |= fields;
+    }
+
+    public void clearDirtyFields(int fields) {
+        dirtyFields &= ~fields;
     }
 
     public Timestamp getLastAuthentication() {
@@ -47,6 +78,7 @@ public class AuthenticUser implements User {
 
     public void setLastAuthentication(Timestamp lastAuthentication) {
         this.lastAuthentication = lastAuthentication;
+        dirtyFields |= Field.LAST_AUTHENTICATION.mask();
     }
 
     public Timestamp getJoinDate() {
@@ -55,6 +87,7 @@ public class AuthenticUser implements User {
 
     public void setJoinDate(Timestamp joinDate) {
         this.joinDate = joinDate;
+        dirtyFields |= Field.JOIN_DATE.mask();
     }
 
     public Timestamp getLastSeen() {
@@ -63,6 +96,7 @@ public class AuthenticUser implements User {
 
     public void setLastSeen(Timestamp lastSeen) {
         this.lastSeen = lastSeen;
+        dirtyFields |= Field.LAST_SEEN.mask();
     }
 
     public HashedPassword getHashedPassword() {
@@ -71,6 +105,7 @@ public class AuthenticUser implements User {
 
     public void setHashedPassword(HashedPassword hashedPassword) {
         this.hashedPassword = hashedPassword;
+        dirtyFields |= Field.HASHED_PASSWORD.mask();
     }
 
     public UUID getUuid() {
@@ -83,6 +118,7 @@ public class AuthenticUser implements User {
 
     public void setPremiumUUID(UUID premiumUUID) {
         this.premiumUUID = premiumUUID;
+        dirtyFields |= Field.PREMIUM_UUID.mask();
     }
 
     public String getLastNickname() {
@@ -91,6 +127,7 @@ public class AuthenticUser implements User {
 
     public void setLastNickname(String lastNickname) {
         this.lastNickname = lastNickname;
+        dirtyFields |= Field.LAST_NICKNAME.mask();
     }
 
     public boolean isRegistered() {
@@ -109,6 +146,7 @@ public class AuthenticUser implements User {
     @Override
     public void setEmail(String email) {
         this.email = email;
+        dirtyFields |= Field.EMAIL.mask();
     }
 
     @Override
@@ -130,6 +168,7 @@ public class AuthenticUser implements User {
 
     public void setSecret(String secret) {
         this.secret = secret;
+        dirtyFields |= Field.SECRET.mask();
     }
 
     public String getIp() {
@@ -138,6 +177,7 @@ public class AuthenticUser implements User {
 
     public void setIp(String ip) {
         this.ip = ip;
+        dirtyFields |= Field.IP.mask();
     }
 
     public String getLastServer() {
@@ -146,6 +186,31 @@ public class AuthenticUser implements User {
 
     public void setLastServer(String lastServer) {
         this.lastServer = lastServer;
+        dirtyFields |= Field.LAST_SERVER.mask();
+    }
+
+    /**
+     * The modifiable fields of a user, used for tracking which of them have changed.
+     */
+    public enum Field {
+        PREMIUM_UUID,
+        HASHED_PASSWORD,
+        LAST_NICKNAME,
+        JOIN_DATE,
+        LAST_SEEN,
+        SECRET,
+        IP,
+        LAST_AUTHENTICATION,
+        LAST_SERVER,
+        EMAIL;
+
+        public int mask() {
+            return 1 << ordinal();
+        }
+
+        public boolean isIn(int fields) {
+            return (fields & mask()) != 0;
+        }
     }
 
 }
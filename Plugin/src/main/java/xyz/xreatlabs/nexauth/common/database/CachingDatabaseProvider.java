@@ -0,0 +1,351 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.database;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.jetbrains.annotations.Nullable;
+import xyz.xreatlabs.nexauth.api.database.ReadWriteDatabaseProvider;
+import xyz.xreatlabs.nexauth.api.database.User;
+import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
+import xyz.xreatlabs.nexauth.common.util.CancellableTask;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.*;
+
+/**
+ * Keeps recently used users in memory and batches frequent updates.
+ * <p>
+ * Updates, which only touch the last seen, last authentication, IP and last server columns, are held back and written by a periodic flush.
+ * Any other update is written immediately, together with the pending state of the user.
+ * Every user handed out is a copy, so callers modifying a user without calling {@link #updateUser(User)} cannot alter the cache.
+ */
+public class CachingDatabaseProvider implements ReadWriteDatabaseProvider {
+
+    /**
+     * Fields, whose modifications are batched
+     */
+    private static final int FREQUENT_FIELDS = AuthenticUser.Field.LAST_SEEN.mask()
+            | AuthenticUser.Field.LAST_AUTHENTICATION.mask()
+            | AuthenticUser.Field.IP.mask()
+            | AuthenticUser.Field.LAST_SERVER.mask();
+    private static final int IP_FIELD = AuthenticUser.Field.IP.mask();
+
+    private final ReadWriteDatabaseProvider delegate;
+    private final AuthenticNexAuth<?, ?> plugin;
+    private final Cache<UUID, AuthenticUser> users;
+    private final Cache<String, UUID> nameIndex;
+    private final Cache<UUID, UUID> premiumIndex;
+    private final Map<UUID, AuthenticUser> pending;
+    /**
+     * The IP stored in the database, for pending users whose IP has changed
+     */
+    private final Map<UUID, Optional<String>> storedIps;
+    private final boolean writeBehind;
+    private final CancellableTask flushTask;
+
+    public CachingDatabaseProvider(ReadWriteDatabaseProvider delegate, AuthenticNexAuth<?, ?> plugin) {
+        this.delegate = delegate;
+        this.plugin = plugin;
+
+        var configuration = plugin.getConfiguration();
+        var maximumSize = configuration.get(DATABASE_CACHE_MAXIMUM_SIZE);
+        var expireAfterAccess = configuration.get(DATABASE_CACHE_EXPIRE_AFTER_ACCESS);
+        var interval = configuration.get(DATABASE_CACHE_WRITE_BEHIND_INTERVAL);
+
+        users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess, TimeUnit.MINUTES)
+                .build();
+        nameIndex = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess, TimeUnit.MINUTES)
+                .build();
+        premiumIndex = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess, TimeUnit.MINUTES)
+                .build();
+        pending = new ConcurrentHashMap<>();
+        storedIps = new ConcurrentHashMap<>();
+
+        writeBehind = interval > 0;
+        flushTask = writeBehind ? plugin.repeat(this::flush, interval, interval) : null;
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return plugin.getDatabaseExecutor();
+    }
+
+    public ReadWriteDatabaseProvider getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Writes all the pending updates to the database.
+     * Updates which fail to be written are kept, and retried on the next flush.
+     * Nothing is written while the database is down.
+     */
+    public void flush() {
+        flush(user -> true);
+    }
+
+    private void flush(Predicate<AuthenticUser> filter) {
+        if (plugin.getDatabaseHealth() == DatabaseHealth.DOWN) return;
+
+        for (var uuid : pending.keySet()) {
+            var candidate = pending.get(uuid);
+            if (candidate == null || !filter.test(candidate)) continue;
+
+            var user = pending.remove(uuid);
+            if (user == null) continue;
+
+            try {
+                delegate.updateUser(user);
+                storedIps.remove(uuid);
+            } catch (Exception e) {
+                // A newer update might have been queued in the meantime, it has to write our fields as well
+                pending.merge(uuid, user, (newer, failed) -> {
+                    newer.markDirty(failed.getDirtyFields());
+                    return newer;
+                });
+
+                if (e instanceof DatabaseUnavailableException) {
+                    plugin.getLogger().warn("The database is unavailable, keeping %d pending updates until it recovers".formatted(pending.size()));
+                    return;
+                }
+
+                plugin.getLogger().error("Failed to write the pending update of user %s, will retry later".formatted(uuid), e);
+            }
+        }
+    }
+
+    /**
+     * Stops the periodic flush, and writes all the pending updates.
+     */
+    public void close() {
+        if (flushTask != null) flushTask.cancel();
+        flush();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public User getByName(String name) {
+        var uuid = nameIndex.getIfPresent(name.toLowerCase());
+
+        if (uuid != null) {
+            var cached = lookup(uuid);
+            if (cached != null && cached.getLastNickname().equalsIgnoreCase(name)) return new AuthenticUser(cached);
+        }
+
+        return remember(delegate.getByName(name));
+    }
+
+    @Override
+    public User getByUUID(UUID uuid) {
+        var cached = lookup(uuid);
+
+        if (cached != null) return new AuthenticUser(cached);
+
+        return remember(delegate.getByUUID(uuid));
+    }
+
+    @Override
+    public User getByPremiumUUID(UUID uuid) {
+        var cachedUUID = premiumIndex.getIfPresent(uuid);
+
+        if (cachedUUID != null) {
+            var cached = lookup(cachedUUID);
+            if (cached != null && uuid.equals(cached.getPremiumUUID())) return new AuthenticUser(cached);
+        }
+
+        return remember(delegate.getByPremiumUUID(uuid));
+    }
+
+    @Override
+    public Collection<User> getAllUsers() {
+        flush();
+        return delegate.getAllUsers();
+    }
+
+    /**
+     * Writes only the pending IP changes, the other pending fields are taken over from the cache.
+     */
+    @Override
+    public Collection<User> getByIP(String ip) {
+        flush(user -> (user.getDirtyFields() & IP_FIELD) != 0);
+
+        return delegate.getByIP(ip).stream()
+                .map(user -> {
+                    var pendingUser = pending.get(user.getUuid());
+                    return pendingUser == null ? user : (User) new AuthenticUser(pendingUser);
+                })
+                .toList();
+    }
+
+    /**
+     * Counts in the database, and corrects the count by the pending IP changes instead of writing them.
+     * This is called for every joining player, so it must not wait for the pending updates to be written.
+     * The count may be off by the users being written by a concurrent flush.
+     */
+    @Override
+    public int countByIP(String ip) {
+        // The stored IP is only unknown after racing a flush, such users are rare, so they're simply written
+        flush(user -> (user.getDirtyFields() & IP_FIELD) != 0 && !storedIps.containsKey(user.getUuid()));
+
+        var count = delegate.countByIP(ip);
+
+        for (var user : pending.values()) {
+            if ((user.getDirtyFields() & IP_FIELD) == 0) continue;
+
+            var stored = storedIps.get(user.getUuid());
+            if (stored == null) continue;
+
+            if (ip.equals(stored.orElse(null))) count--;
+            if (ip.equals(user.getIp())) count++;
+        }
+
+        return Math.max(count, 0);
+    }
+
+    @Override
+    public void insertUser(User user) {
+        delegate.insertUser(user);
+        store(new AuthenticUser(user));
+    }
+
+    @Override
+    public void insertUsers(Collection<User> users) {
+        delegate.insertUsers(users);
+    }
+
+    @Override
+    public void updateUser(User user) {
+        var uuid = user.getUuid();
+        var previous = lookup(uuid);
+        var snapshot = new AuthenticUser(user);
+        var fields = changedFields(previous, user);
+
+        if (fields == 0) return;
+
+        if (writeBehind && previous != null && (fields & ~FREQUENT_FIELDS) == 0) {
+            pending.compute(uuid, (key, existing) -> {
+                // Remember the IP in the database before it's first changed, so countByIP() can work around the pending change
+                if ((fields & IP_FIELD) != 0 && (existing == null || (existing.getDirtyFields() & IP_FIELD) == 0)) {
+                    storedIps.put(key, Optional.ofNullable(existing == null ? previous.getIp() : existing.getIp()));
+                }
+
+                snapshot.markDirty(existing == null ? fields : existing.getDirtyFields() | fields);
+                return snapshot;
+            });
+            store(snapshot);
+            if (user instanceof AuthenticUser authentic) authentic.clearDirtyFields(fields);
+            return;
+        }
+
+        // The snapshot contains the complete state of the user, so it also writes any pending update
+        var existing = pending.remove(uuid);
+        snapshot.markDirty(existing == null ? fields : existing.getDirtyFields() | fields);
+
+        try {
+            delegate.updateUser(snapshot);
+        } catch (RuntimeException e) {
+            users.invalidate(uuid);
+            if (existing != null) pending.putIfAbsent(uuid, existing);
+            throw e;
+        }
+
+        storedIps.remove(uuid);
+        store(snapshot);
+        if (user instanceof AuthenticUser authentic) authentic.clearDirtyFields(fields);
+    }
+
+    @Override
+    public void deleteUser(User user) {
+        var uuid = user.getUuid();
+
+        pending.remove(uuid);
+        storedIps.remove(uuid);
+        users.invalidate(uuid);
+
+        delegate.deleteUser(user);
+    }
+
+    @Nullable
+    private AuthenticUser lookup(UUID uuid) {
+        var pendingUser = pending.get(uuid);
+        return pendingUser != null ? pendingUser : users.getIfPresent(uuid);
+    }
+
+    @Nullable
+    private User remember(@Nullable User user) {
+        if (user == null) return null;
+
+        // Never replace a pending update by an older state from the database
+        var snapshot = pending.get(user.getUuid());
+
+        if (snapshot == null) {
+            snapshot = new AuthenticUser(user);
+        }
+
+        store(snapshot);
+
+        return new AuthenticUser(snapshot);
+    }
+
+    private void store(AuthenticUser user) {
+        users.put(user.getUuid(), user);
+        nameIndex.put(user.getLastNickname().toLowerCase(), user.getUuid());
+
+        if (user.getPremiumUUID() != null) {
+            premiumIndex.put(user.getPremiumUUID(), user.getUuid());
+        }
+    }
+
+    private static int changedFields(@Nullable User previous, User current) {
+        if (current instanceof AuthenticUser authentic) return authentic.getDirtyFields();
+        if (previous == null) return AuthenticUser.ALL_FIELDS;
+
+        var fields = 0;
+
+        if (!Objects.equals(previous.getPremiumUUID(), current.getPremiumUUID()))
+            fields |= AuthenticUser.Field.PREMIUM_UUID.mask();
+        if (!Objects.equals(previous.getHashedPassword(), current.getHashedPassword()))
+            fields |= AuthenticUser.Field.HASHED_PASSWORD.mask();
+        if (!Objects.equals(previous.getLastNickname(), current.getLastNickname()))
+            fields |= AuthenticUser.Field.LAST_NICKNAME.mask();
+        if (!Objects.equals(previous.getJoinDate(), current.getJoinDate()))
+            fields |= AuthenticUser.Field.JOIN_DATE.mask();
+        if (!Objects.equals(previous.getLastSeen(), current.getLastSeen()))
+            fields |= AuthenticUser.Field.LAST_SEEN.mask();
+        if (!Objects.equals(previous.getSecret(), current.getSecret()))
+            fields |= AuthenticUser.Field.SECRET.mask();
+        if (!Objects.equals(previous.getIp(), current.getIp()))
+            fields |= AuthenticUser.Field.IP.mask();
+        if (!Objects.equals(previous.getLastAuthentication(), current.getLastAuthentication()))
+            fields |= AuthenticUser.Field.LAST_AUTHENTICATION.mask();
+        if (!Objects.equals(previous.getLastServer(), current.getLastServer()))
+            fields |= AuthenticUser.Field.LAST_SERVER.mask();
+        if (!Objects.equals(previous.getEmail(), current.getEmail()))
+            fields |= AuthenticUser.Field.EMAIL.mask();
+
+        return fields;
+    }
+
+}
@@ -0,0 +1,24 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.database;
+
+public enum DatabaseHealth {
+    /**
+     * The queries succeed
+     */
+    HEALTHY,
+    /**
+     * Some queries recently failed to reach the database, or a trial query is in progress after an outage.
+     * New registrations are refused.
+     */
+    DEGRADED,
+    /**
+     * The database is unreachable, queries are refused without trying.
+     * Only cached users can join.
+     */
+    DOWN
+}
@@ -9,16 +9,26 @@ package xyz.xreatlabs.nexauth.common.database.connector;
 import xyz.xreatlabs.nexauth.api.database.connector.DatabaseConnector;
 import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 import xyz.xreatlabs.nexauth.common.config.key.ConfigurationKey;
+import xyz.xreatlabs.nexauth.common.util.Bulkhead;
+
+import java.util.concurrent.Executor;
+
+import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.EXECUTOR_LIMIT_DATABASE;
 
 public abstract class AuthenticDatabaseConnector<E extends Exception, I> implements DatabaseConnector<E, I> {
 
     protected final AuthenticNexAuth<?, ?> plugin;
     private final String prefix;
+    /**
+     * Each database gets its own limit, so reading the old database during a migration cannot starve the inserts into the new one
+     */
+    protected final Bulkhead bulkhead;
     protected boolean connected = true;
 
     public AuthenticDatabaseConnector(AuthenticNexAuth<?, ?> plugin, String prefix) {
         this.plugin = plugin;
         this.prefix = prefix;
+        this.bulkhead = new Bulkhead("the database", plugin.getConfiguration().get(EXECUTOR_LIMIT_DATABASE));
     }
 
     @Override
@@ -26,6 +36,15 @@ public abstract class AuthenticDatabaseConnector<E extends Exception, I> impleme
         return connected;
     }
 
+    @Override
+    public Executor getAsyncExecutor() {
+        return plugin.getDatabaseExecutor();
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
     public <T> T get(ConfigurationKey<T> key) {
         var value = key.getter().apply(plugin.getConfiguration().getHelper(), prefix + key.key());
         return value == null ? key.defaultValue() : value;
@@ -9,18 +9,18 @@ package xyz.xreatlabs.nexauth.common.database.connector;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import xyz.xreatlabs.nexauth.api.database.connector.MySQLDatabaseConnector;
-import xyz.xreatlabs.nexauth.api.util.ThrowableFunction;
 import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 import xyz.xreatlabs.nexauth.common.config.ConfigurateHelper;
 import xyz.xreatlabs.nexauth.common.config.key.ConfigurationKey;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.SQLTransientConnectionException;
+import java.util.List;
 
-public class AuthenticMySQLDatabaseConnector extends AuthenticDatabaseConnector<SQLException, Connection> implements MySQLDatabaseConnector {
+public class AuthenticMySQLDatabaseConnector extends AuthenticSQLDatabaseConnector implements MySQLDatabaseConnector {
 
     private final HikariConfig hikariConfig;
+    private final ReplicaPool replicas;
     private HikariDataSource dataSource;
 
     public AuthenticMySQLDatabaseConnector(AuthenticNexAuth<?, ?> plugin, String prefix) {
@@ -31,8 +31,10 @@ public class AuthenticMySQLDatabaseConnector extends AuthenticDatabaseConnector<
         hikariConfig.setPoolName("NexAuth MySQL Pool");
         hikariConfig.setDriverClassName("xyz.xreatlabs.nexauth.lib.mariadb.jdbc.Driver");
         hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
+        hikariConfig.addDataSourceProperty("prepStmtCacheSize", String.valueOf(get(Configuration.PREPARED_STATEMENT_CACHE_SIZE)));
         hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        hikariConfig.addDataSourceProperty("useServerPrepStmts", String.valueOf(get(Configuration.USE_SERVER_PREPARED_STATEMENTS)));
+        hikariConfig.addDataSourceProperty("useBulkStmts", String.valueOf(get(Configuration.USE_BULK_STATEMENTS)));
         hikariConfig.setUsername(get(Configuration.USER));
         hikariConfig.setPassword(get(Configuration.PASSWORD));
         hikariConfig.setJdbcUrl(get(Configuration.JDBC_URL)
@@ -41,18 +43,29 @@ public class AuthenticMySQLDatabaseConnector extends AuthenticDatabaseConnector<
                 .replace("%database%", get(Configuration.NAME))
         );
         hikariConfig.setMaxLifetime(get(Configuration.MAX_LIFE_TIME));
+        hikariConfig.setMaximumPoolSize(Math.max(1, get(Configuration.MAXIMUM_POOL_SIZE)));
+        if (get(Configuration.MINIMUM_IDLE) >= 0) hikariConfig.setMinimumIdle(get(Configuration.MINIMUM_IDLE));
+        hikariConfig.setConnectionTimeout(Math.max(250, get(Configuration.CONNECTION_TIMEOUT)));
+
+        this.replicas = new ReplicaPool(plugin, hikariConfig, get(Configuration.REPLICAS), get(Configuration.PORT), (host, port) -> get(Configuration.JDBC_URL)
+                .replace("%host%", host)
+                .replace("%port%", String.valueOf(port))
+                .replace("%database%", get(Configuration.NAME))
+        );
     }
 
     @Override
     public void connect() throws SQLException {
         dataSource = new HikariDataSource(hikariConfig);
         obtainInterface().close(); //Verify connection
+        replicas.connect();
         connected = true;
     }
 
     @Override
     public void disconnect() throws SQLException {
         connected = false;
+        replicas.disconnect();
         dataSource.close();
     }
 
@@ -63,20 +76,8 @@ public class AuthenticMySQLDatabaseConnector extends AuthenticDatabaseConnector<
     }
 
     @Override
-    public <V> V runQuery(ThrowableFunction<Connection, V, SQLException> function) throws IllegalStateException {
-        try {
-            try (var connection = obtainInterface()) {
-                return function.apply(connection);
-            }
-        } catch (SQLTransientConnectionException e) {
-            plugin.getLogger().error("!! LOST CONNECTION TO THE DATABASE, THE PROXY IS GOING TO SHUT DOWN TO PREVENT DAMAGE !!");
-            e.printStackTrace();
-            System.exit(1);
-            //Won't return anyway
-            return null;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+    protected ReplicaPool getReplicas() {
+        return replicas;
     }
 
     public static final class Configuration {
@@ -129,5 +130,60 @@ public class AuthenticMySQLDatabaseConnector extends AuthenticDatabaseConnector<
                 "The JDBC URL of the database. Don't touch this if you don't know what you're doing. (Using jdbc:mariadb also works for pure mysql)",
                 ConfigurateHelper::getString
         );
+
+        public static final ConfigurationKey<List<String>> REPLICAS = new ConfigurationKey<>(
+                "replicas",
+                List.of(),
+                """
+                        The read replicas of the database, as "host" or "host:port". They must use the same database name and credentials.
+                        Lookups are spread across the replicas, while writes, and lookups of recently written users, go to the primary database.""",
+                ConfigurateHelper::getStringList
+        );
+
+        public static final ConfigurationKey<Integer> MAXIMUM_POOL_SIZE = new ConfigurationKey<>(
+                "maximum-pool-size",
+                10,
+                """
+                        The maximum amount of connections to the database.
+                        Keep the amount of proxies/servers times this value below the connection limit of your database (max_connections).""",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Integer> MINIMUM_IDLE = new ConfigurationKey<>(
+                "minimum-idle",
+                -1,
+                "The minimum amount of idle connections kept open. Set to -1 to keep the maximum pool size open.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Integer> CONNECTION_TIMEOUT = new ConfigurationKey<>(
+                "connection-timeout",
+                5000,
+                "The maximum amount of milliseconds to wait for a connection, before the query fails and gets retried.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Integer> PREPARED_STATEMENT_CACHE_SIZE = new ConfigurationKey<>(
+                "prepared-statement-cache-size",
+                250,
+                "The amount of prepared statements cached per connection.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Boolean> USE_SERVER_PREPARED_STATEMENTS = new ConfigurationKey<>(
+                "use-server-prepared-statements",
+                true,
+                """
+                        Should the statements be prepared on the server? This saves parsing the frequent lookups again.
+                        Disable this if you are using a proxy in front of the database, which does not support them.""",
+                ConfigurateHelper::getBoolean
+        );
+
+        public static final ConfigurationKey<Boolean> USE_BULK_STATEMENTS = new ConfigurationKey<>(
+                "use-bulk-statements",
+                true,
+                "Should batches be sent to the database at once? This speeds up migrations considerably.",
+                ConfigurateHelper::getBoolean
+        );
     }
 }
@@ -9,18 +9,18 @@ package xyz.xreatlabs.nexauth.common.database.connector;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import xyz.xreatlabs.nexauth.api.database.connector.PostgreSQLDatabaseConnector;
-import xyz.xreatlabs.nexauth.api.util.ThrowableFunction;
 import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 import xyz.xreatlabs.nexauth.common.config.ConfigurateHelper;
 import xyz.xreatlabs.nexauth.common.config.key.ConfigurationKey;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.SQLTransientConnectionException;
+import java.util.List;
 
-public class AuthenticPostgreSQLDatabaseConnector extends AuthenticDatabaseConnector<SQLException, Connection> implements PostgreSQLDatabaseConnector {
+public class AuthenticPostgreSQLDatabaseConnector extends AuthenticSQLDatabaseConnector implements PostgreSQLDatabaseConnector {
 
     private final HikariConfig hikariConfig;
+    private final ReplicaPool replicas;
     private HikariDataSource dataSource;
 
     public AuthenticPostgreSQLDatabaseConnector(AuthenticNexAuth<?, ?> plugin, String prefix) {
@@ -30,28 +30,39 @@ public class AuthenticPostgreSQLDatabaseConnector extends AuthenticDatabaseConne
 
         hikariConfig.setPoolName("NexAuth PostgreSQL Pool");
         hikariConfig.setDriverClassName("org.postgresql.Driver");
-        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        hikariConfig.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(get(Configuration.PREPARED_STATEMENT_CACHE_SIZE)));
+        hikariConfig.addDataSourceProperty("prepareThreshold", String.valueOf(get(Configuration.PREPARE_THRESHOLD)));
+        hikariConfig.addDataSourceProperty("reWriteBatchedInserts", String.valueOf(get(Configuration.REWRITE_BATCHED_INSERTS)));
         hikariConfig.addDataSourceProperty("ssl", "false");
         hikariConfig.addDataSourceProperty("sslmode", "disable");
 
         hikariConfig.setUsername(get(Configuration.USER));
         hikariConfig.setPassword(get(Configuration.PASSWORD));
-        hikariConfig.setJdbcUrl("jdbc:postgresql://" + get(Configuration.HOST) + ":" + get(Configuration.PORT) + "/" + get(Configuration.NAME) + "?sslmode=disable&autoReconnect=true&zeroDateTimeBehavior=convertToNull&ssl=false");
+        hikariConfig.setJdbcUrl(createJdbcUrl(get(Configuration.HOST), get(Configuration.PORT)));
         hikariConfig.setMaxLifetime(get(Configuration.MAX_LIFE_TIME));
+        hikariConfig.setMaximumPoolSize(Math.max(1, get(Configuration.MAXIMUM_POOL_SIZE)));
+        if (get(Configuration.MINIMUM_IDLE) >= 0) hikariConfig.setMinimumIdle(get(Configuration.MINIMUM_IDLE));
+        hikariConfig.setConnectionTimeout(Math.max(250, get(Configuration.CONNECTION_TIMEOUT)));
+
+        this.replicas = new ReplicaPool(plugin, hikariConfig, get(Configuration.REPLICAS), get(Configuration.PORT), this::createJdbcUrl);
+    }
+
+    private String createJdbcUrl(String host, int port) {
+        return "jdbc:postgresql://" + host + ":" + port + "/" + get(Configuration.NAME) + "?sslmode=disable&autoReconnect=true&zeroDateTimeBehavior=convertToNull&ssl=false";
     }
 
     @Override
     public void connect() throws SQLException {
         dataSource = new HikariDataSource(hikariConfig);
         obtainInterface().close(); //Verify connection
+        replicas.connect();
         connected = true;
     }
 
     @Override
     public void disconnect() throws SQLException {
         connected = false;
+        replicas.disconnect();
         dataSource.close();
     }
 
@@ -62,20 +73,8 @@ public class AuthenticPostgreSQLDatabaseConnector extends AuthenticDatabaseConne
     }
 
     @Override
-    public <V> V runQuery(ThrowableFunction<Connection, V, SQLException> function) throws IllegalStateException {
-        try {
-            try (var connection = obtainInterface()) {
-                return function.apply(connection);
-            }
-        } catch (SQLTransientConnectionException e) {
-            plugin.getLogger().error("!! LOST CONNECTION TO THE DATABASE, THE PROXY IS GOING TO SHUT DOWN TO PREVENT DAMAGE !!");
-            e.printStackTrace();
-            System.exit(1);
-            //Won't return anyway
-            return null;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+    protected ReplicaPool getReplicas() {
+        return replicas;
     }
 
     public static final class Configuration {
@@ -121,5 +120,60 @@ public class AuthenticPostgreSQLDatabaseConnector extends AuthenticDatabaseConne
                 "The maximum lifetime of a database connection in milliseconds. Don't touch this if you don't know what you're doing.",
                 ConfigurateHelper::getInt
         );
+
+        public static final ConfigurationKey<List<String>> REPLICAS = new ConfigurationKey<>(
+                "replicas",
+                List.of(),
+                """
+                        The read replicas of the database, as "host" or "host:port". They must use the same database name and credentials.
+                        Lookups are spread across the replicas, while writes, and lookups of recently written users, go to the primary database.""",
+                ConfigurateHelper::getStringList
+        );
+
+        public static final ConfigurationKey<Integer> MAXIMUM_POOL_SIZE = new ConfigurationKey<>(
+                "maximum-pool-size",
+                10,
+                """
+                        The maximum amount of connections to the database.
+                        Keep the amount of proxies/servers times this value below the connection limit of your database (max_connections).""",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Integer> MINIMUM_IDLE = new ConfigurationKey<>(
+                "minimum-idle",
+                -1,
+                "The minimum amount of idle connections kept open. Set to -1 to keep the maximum pool size open.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Integer> CONNECTION_TIMEOUT = new ConfigurationKey<>(
+                "connection-timeout",
+                5000,
+                "The maximum amount of milliseconds to wait for a connection, before the query fails and gets retried.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Integer> PREPARED_STATEMENT_CACHE_SIZE = new ConfigurationKey<>(
+                "prepared-statement-cache-size",
+                256,
+                "The amount of prepared statements cached per connection.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Integer> PREPARE_THRESHOLD = new ConfigurationKey<>(
+                "prepare-threshold",
+                1,
+                """
+                        The amount of executions of a statement, after which it is prepared on the server.
+                        Set to 0 if you are using a transaction pooler (like PgBouncer) in front of the database.""",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Boolean> REWRITE_BATCHED_INSERTS = new ConfigurationKey<>(
+                "rewrite-batched-inserts",
+                true,
+                "Should batched inserts be rewritten into multi-row inserts? This speeds up migrations considerably.",
+                ConfigurateHelper::getBoolean
+        );
     }
 }
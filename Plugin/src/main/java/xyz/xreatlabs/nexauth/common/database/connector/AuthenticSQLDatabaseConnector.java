@@ -0,0 +1,175 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.database.connector;
+
+import org.jetbrains.annotations.Nullable;
+import xyz.xreatlabs.nexauth.api.database.connector.SQLDatabaseConnector;
+import xyz.xreatlabs.nexauth.api.util.ThrowableFunction;
+import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
+import xyz.xreatlabs.nexauth.common.database.DatabaseHealth;
+import xyz.xreatlabs.nexauth.common.database.DatabaseUnavailableException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.*;
+
+/**
+ * Runs the queries with retries and a circuit breaker, so a short outage of the database does not take down the server.
+ */
+public abstract class AuthenticSQLDatabaseConnector extends AuthenticDatabaseConnector<SQLException, Connection> implements SQLDatabaseConnector {
+
+    private static final long MAX_RETRY_DELAY = 5000;
+
+    private final CircuitBreaker circuitBreaker;
+    private final int retries;
+    private final long retryDelay;
+
+    public AuthenticSQLDatabaseConnector(AuthenticNexAuth<?, ?> plugin, String prefix) {
+        super(plugin, prefix);
+
+        var configuration = plugin.getConfiguration();
+
+        this.circuitBreaker = new CircuitBreaker(configuration.get(DATABASE_RESILIENCE_FAILURE_THRESHOLD), configuration.get(DATABASE_RESILIENCE_OPEN_DURATION));
+        this.retries = Math.max(0, configuration.get(DATABASE_RESILIENCE_RETRIES));
+        this.retryDelay = Math.max(1, configuration.get(DATABASE_RESILIENCE_RETRY_DELAY));
+    }
+
+    /**
+     * Runs the query, retrying to obtain a connection if the database can't be reached.
+     * The query itself runs only once, if the connection is lost during it, {@link DatabaseUnavailableException} is thrown.
+     *
+     * @throws DatabaseUnavailableException If the database could not be reached, or queries are refused during an outage
+     */
+    @Override
+    public <V> V runQuery(ThrowableFunction<Connection, V, SQLException> function) throws IllegalStateException {
+        return run(function);
+    }
+
+    /**
+     * Same as {@link #runQuery(ThrowableFunction)}, but the query may run on a read replica.
+     * Failures of a replica only count against that replica, the query is then run on the primary database instead.
+     */
+    @Override
+    public <V> V runReadQuery(ThrowableFunction<Connection, V, SQLException> function) throws IllegalStateException {
+        var replicas = getReplicas();
+
+        if (replicas != null) {
+            try (var ignored = bulkhead.acquire()) {
+                var replica = replicas.obtainConnection();
+
+                if (replica != null) {
+                    try (var connection = replica.connection()) {
+                        return function.apply(connection);
+                    } catch (SQLException e) {
+                        if (!isTransient(e)) throw new RuntimeException(e);
+
+                        // The query is read-only, so running it again cannot have side effects
+                        replicas.onFailure(replica, e);
+                    }
+                }
+            }
+        }
+
+        return run(function);
+    }
+
+    /**
+     * @return The read replicas, or null if this database does not support them
+     */
+    @Nullable
+    protected ReplicaPool getReplicas() {
+        return null;
+    }
+
+    private <V> V run(ThrowableFunction<Connection, V, SQLException> function) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new DatabaseUnavailableException("The database is unavailable, refusing the query");
+        }
+
+        var reachable = true;
+
+        try {
+            for (var attempt = 0; ; attempt++) {
+                try (var ignored = bulkhead.acquire()) {
+                    Connection connection;
+
+                    try {
+                        connection = obtainInterface();
+                    } catch (SQLException e) {
+                        if (!isTransient(e)) throw new RuntimeException(e);
+
+                        if (attempt >= retries || !connected()) {
+                            reachable = false;
+                            throw new DatabaseUnavailableException("Failed to reach the database after %d attempts".formatted(attempt + 1), e);
+                        }
+
+                        plugin.getLogger().debug("Failed to reach the database, retrying: " + e.getMessage());
+                        connection = null;
+                    }
+
+                    if (connection != null) {
+                        // Not retried, the query might have had side effects before the connection was lost, e.g. rows already fed to a migration
+                        try (var open = connection) {
+                            return function.apply(open);
+                        } catch (SQLException e) {
+                            if (!isTransient(e)) throw new RuntimeException(e);
+
+                            reachable = false;
+                            throw new DatabaseUnavailableException("Lost the connection to the database during the query", e);
+                        }
+                    }
+                }
+
+                sleep(attempt);
+            }
+        } finally {
+            if (reachable) {
+                if (circuitBreaker.onSuccess() != CircuitBreaker.State.CLOSED) {
+                    plugin.getLogger().info("The connection to the database has been restored");
+                }
+            } else if (circuitBreaker.onFailure() == CircuitBreaker.State.OPEN) {
+                plugin.getLogger().error("!! LOST CONNECTION TO THE DATABASE, REFUSING QUERIES FOR %d MS !! Cached users can still join, new registrations are refused.".formatted(circuitBreaker.getOpenDuration()));
+            }
+        }
+    }
+
+    public DatabaseHealth getHealth() {
+        return switch (circuitBreaker.getState()) {
+            case OPEN -> DatabaseHealth.DOWN;
+            case HALF_OPEN -> DatabaseHealth.DEGRADED;
+            case CLOSED -> circuitBreaker.getFailures() > 0 ? DatabaseHealth.DEGRADED : DatabaseHealth.HEALTHY;
+        };
+    }
+
+    private void sleep(int attempt) {
+        // Exponential backoff with jitter, so the queries of all the threads do not hit the recovering database at once
+        var delay = Math.min(MAX_RETRY_DELAY, retryDelay << Math.min(attempt, 16));
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(delay / 2, delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseUnavailableException("Interrupted while waiting to retry the query", e);
+        }
+    }
+
+    private static boolean isTransient(SQLException e) {
+        var state = e.getSQLState();
+
+        // SQL state class 08 covers connection exceptions
+        return e instanceof SQLTransientException
+                || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException
+                || (state != null && state.startsWith("08"));
+    }
+
+}
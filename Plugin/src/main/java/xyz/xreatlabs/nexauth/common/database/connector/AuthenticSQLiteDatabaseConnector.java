@@ -9,16 +9,14 @@ package xyz.xreatlabs.nexauth.common.database.connector;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import xyz.xreatlabs.nexauth.api.database.connector.SQLiteDatabaseConnector;
-import xyz.xreatlabs.nexauth.api.util.ThrowableFunction;
 import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 import xyz.xreatlabs.nexauth.common.config.ConfigurateHelper;
 import xyz.xreatlabs.nexauth.common.config.key.ConfigurationKey;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.SQLTransientConnectionException;
 
-public class AuthenticSQLiteDatabaseConnector extends AuthenticDatabaseConnector<SQLException, Connection> implements SQLiteDatabaseConnector {
+public class AuthenticSQLiteDatabaseConnector extends AuthenticSQLDatabaseConnector implements SQLiteDatabaseConnector {
 
     private final HikariConfig hikariConfig;
     private HikariDataSource dataSource;
@@ -34,8 +32,14 @@ public class AuthenticSQLiteDatabaseConnector extends AuthenticDatabaseConnector
         hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
         hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
         hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        hikariConfig.addDataSourceProperty("journal_mode", get(Configuration.JOURNAL_MODE));
+        hikariConfig.addDataSourceProperty("synchronous", get(Configuration.SYNCHRONOUS));
+        hikariConfig.addDataSourceProperty("busy_timeout", String.valueOf(get(Configuration.BUSY_TIMEOUT)));
 
         hikariConfig.setJdbcUrl("jdbc:sqlite:" + plugin.getDataFolder().getAbsolutePath() + "/" + get(Configuration.PATH));
+        hikariConfig.setMaximumPoolSize(Math.max(1, get(Configuration.MAXIMUM_POOL_SIZE)));
+        if (get(Configuration.MINIMUM_IDLE) >= 0) hikariConfig.setMinimumIdle(get(Configuration.MINIMUM_IDLE));
+        hikariConfig.setConnectionTimeout(Math.max(250, get(Configuration.CONNECTION_TIMEOUT)));
     }
 
     @Override
@@ -57,23 +61,6 @@ public class AuthenticSQLiteDatabaseConnector extends AuthenticDatabaseConnector
         return dataSource.getConnection();
     }
 
-    @Override
-    public <V> V runQuery(ThrowableFunction<Connection, V, SQLException> function) throws IllegalStateException {
-        try {
-            try (var connection = obtainInterface()) {
-                return function.apply(connection);
-            }
-        } catch (SQLTransientConnectionException e) {
-            plugin.getLogger().error("!! LOST CONNECTION TO THE DATABASE, THE PROXY IS GOING TO SHUT DOWN TO PREVENT DAMAGE !!");
-            e.printStackTrace();
-            System.exit(1);
-            //Won't return anyway
-            return null;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     public static final class Configuration {
         public static final ConfigurationKey<String> PATH = new ConfigurationKey<>(
                 "path",
@@ -81,5 +68,49 @@ public class AuthenticSQLiteDatabaseConnector extends AuthenticDatabaseConnector
                 "Path to SQLite database file. Relative to plugin datafolder.",
                 ConfigurateHelper::getString
         );
+
+        public static final ConfigurationKey<Integer> MAXIMUM_POOL_SIZE = new ConfigurationKey<>(
+                "maximum-pool-size",
+                4,
+                "The maximum amount of connections to the database. Only one of them can write at a time.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Integer> MINIMUM_IDLE = new ConfigurationKey<>(
+                "minimum-idle",
+                -1,
+                "The minimum amount of idle connections kept open. Set to -1 to keep the maximum pool size open.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Integer> CONNECTION_TIMEOUT = new ConfigurationKey<>(
+                "connection-timeout",
+                5000,
+                "The maximum amount of milliseconds to wait for a connection, before the query fails and gets retried.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<String> JOURNAL_MODE = new ConfigurationKey<>(
+                "journal-mode",
+                "WAL",
+                """
+                        The journal mode of the database. WAL lets lookups run while a write is in progress.
+                        Use DELETE if the database file is stored on a network file system.""",
+                ConfigurateHelper::getString
+        );
+
+        public static final ConfigurationKey<String> SYNCHRONOUS = new ConfigurationKey<>(
+                "synchronous",
+                "NORMAL",
+                "How often the database waits for the data to be written to the disk. NORMAL is safe with WAL, FULL is safer, but slower.",
+                ConfigurateHelper::getString
+        );
+
+        public static final ConfigurationKey<Integer> BUSY_TIMEOUT = new ConfigurationKey<>(
+                "busy-timeout",
+                5000,
+                "The maximum amount of milliseconds to wait for the database to be unlocked by another write.",
+                ConfigurateHelper::getInt
+        );
     }
 }
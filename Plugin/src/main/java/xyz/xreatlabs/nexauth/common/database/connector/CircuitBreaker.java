@@ -0,0 +1,91 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.database.connector;
+
+/**
+ * Stops calls to a service after too many consecutive failures.
+ * <p>
+ * Once opened, all calls are refused for the open duration. After that, a single trial call is allowed,
+ * which either closes the breaker, or opens it again.
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openDuration;
+    private State state;
+    private int failures;
+    private long openedAt;
+
+    /**
+     * @param failureThreshold The amount of consecutive failures opening the breaker
+     * @param openDuration     The amount of milliseconds to refuse calls for
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+        this.state = State.CLOSED;
+    }
+
+    /**
+     * @return Whether the call may proceed, in which case either {@link #onSuccess()} or {@link #onFailure()} must follow
+     */
+    public synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (System.currentTimeMillis() - openedAt < openDuration) yield false;
+                state = State.HALF_OPEN;
+                yield true;
+            }
+            // The trial call is still running
+            case HALF_OPEN -> false;
+        };
+    }
+
+    /**
+     * @return The state before the call
+     */
+    public synchronized State onSuccess() {
+        var previous = state;
+        failures = 0;
+        state = State.CLOSED;
+        return previous;
+    }
+
+    /**
+     * @return The state after the call
+     */
+    public synchronized State onFailure() {
+        failures++;
+
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+
+        return state;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getFailures() {
+        return failures;
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.database.connector;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jetbrains.annotations.Nullable;
+import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.DATABASE_RESILIENCE_OPEN_DURATION;
+
+/**
+ * Connections to the read replicas, handed out in a round-robin fashion.
+ * A replica which fails to provide a connection is skipped for a while.
+ */
+public class ReplicaPool {
+
+    private final AuthenticNexAuth<?, ?> plugin;
+    private final List<HikariConfig> configs;
+    private final List<HikariDataSource> dataSources;
+    private final List<CircuitBreaker> circuitBreakers;
+    private final AtomicInteger next;
+
+    /**
+     * @param template    The configuration of the primary pool
+     * @param replicas    The replicas, either as {@code host} or {@code host:port}
+     * @param defaultPort The port used when a replica does not specify one
+     * @param urlBuilder  Creates the JDBC URL from the host and the port
+     */
+    public ReplicaPool(AuthenticNexAuth<?, ?> plugin, HikariConfig template, List<String> replicas, int defaultPort, BiFunction<String, Integer, String> urlBuilder) {
+        this.plugin = plugin;
+        this.configs = new ArrayList<>(replicas.size());
+        this.dataSources = new ArrayList<>(replicas.size());
+        this.circuitBreakers = new ArrayList<>(replicas.size());
+        this.next = new AtomicInteger();
+
+        for (var replica : replicas) {
+            var host = replica;
+            var port = defaultPort;
+            var separator = replica.lastIndexOf(':');
+
+            // Do not split unbracketed IPv6 addresses
+            if ((separator > 0 && replica.indexOf(':') == separator) || (replica.startsWith("[") && separator > replica.indexOf(']'))) {
+                host = replica.substring(0, separator);
+                port = Integer.parseInt(replica.substring(separator + 1));
+            }
+
+            var config = new HikariConfig();
+            template.copyStateTo(config);
+
+            config.setPoolName(template.getPoolName() + " (replica " + replica + ")");
+            config.setJdbcUrl(urlBuilder.apply(host, port));
+            config.setReadOnly(true);
+            // A replica being down must not prevent the startup
+            config.setInitializationFailTimeout(-1);
+
+            configs.add(config);
+            // Falling back to the primary database is cheap, so skip the replica after the first failure
+            circuitBreakers.add(new CircuitBreaker(1, plugin.getConfiguration().get(DATABASE_RESILIENCE_OPEN_DURATION)));
+        }
+    }
+
+    public boolean isEmpty() {
+        return configs.isEmpty();
+    }
+
+    public void connect() {
+        for (var config : configs) {
+            dataSources.add(new HikariDataSource(config));
+        }
+    }
+
+    public void disconnect() {
+        for (var dataSource : dataSources) {
+            dataSource.close();
+        }
+        dataSources.clear();
+    }
+
+    /**
+     * @return A connection to the next available replica, or null if none of them is available
+     */
+    @Nullable
+    public Replica obtainConnection() {
+        var size = dataSources.size();
+        if (size == 0) return null;
+
+        var start = Math.floorMod(next.getAndIncrement(), size);
+
+        for (var i = 0; i < size; i++) {
+            var index = (start + i) % size;
+            var circuitBreaker = circuitBreakers.get(index);
+
+            if (!circuitBreaker.tryAcquire()) continue;
+
+            try {
+                var connection = dataSources.get(index).getConnection();
+                circuitBreaker.onSuccess();
+                return new Replica(index, connection);
+            } catch (SQLException e) {
+                onFailure(index, e);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Skips the replica for a while, after a query on it failed because the connection was lost.
+     */
+    public void onFailure(Replica replica, SQLException e) {
+        onFailure(replica.index(), e);
+    }
+
+    private void onFailure(int index, SQLException e) {
+        if (circuitBreakers.get(index).onFailure() == CircuitBreaker.State.OPEN) {
+            plugin.getLogger().warn("Failed to read from the replica %s, reading from the other databases: %s".formatted(configs.get(index).getPoolName(), e.getMessage()));
+        }
+    }
+
+    public record Replica(int index, Connection connection) {
+    }
+
+}
@@ -38,8 +38,34 @@ public class NexAuthMySQLDatabaseProvider extends NexAuthSQLDatabaseProvider {
         return "IGNORE";
     }
 
+    @Override
+    protected String prepareNicknameLookup(Connection connection) throws SQLException {
+        // Neither MariaDB, nor older MySQL versions support functional indexes, but all of them support indexed generated columns
+        if (!getColumnNames(connection).contains("last_nickname_lower")) {
+            connection.prepareStatement("ALTER TABLE librepremium_data ADD COLUMN last_nickname_lower VARCHAR(255) AS (LOWER(last_nickname)) VIRTUAL").executeUpdate();
+        }
+
+        var ps = connection.prepareStatement("SELECT 1 FROM INFORMATION_SCHEMA.STATISTICS WHERE TABLE_NAME='librepremium_data' AND TABLE_SCHEMA=? AND INDEX_NAME='last_nickname_lower_index'");
+
+        ps.setString(1, ((AuthenticMySQLDatabaseConnector) connector).get(AuthenticMySQLDatabaseConnector.Configuration.NAME));
+
+        if (!ps.executeQuery().next()) {
+            plugin.getLogger().info("Creating the nickname index, this might take a while on large databases...");
+            // The index is built in place, without blocking writes
+            connection.prepareStatement("CREATE INDEX last_nickname_lower_index ON librepremium_data(last_nickname_lower) ALGORITHM=INPLACE LOCK=NONE").executeUpdate();
+            plugin.getLogger().info("Nickname index created");
+        }
+
+        return "last_nickname_lower=LOWER(?)";
+    }
+
     @Override
     protected String addUnique(String column) {
         return "CREATE UNIQUE INDEX %s_index ON librepremium_data(%s)".formatted(column, column);
     }
+
+    @Override
+    protected String addIndex(String column) {
+        return "CREATE INDEX %s_index ON librepremium_data(%s)".formatted(column, column);
+    }
 }
@@ -37,8 +37,36 @@ public class NexAuthPostgreSQLDatabaseProvider extends NexAuthSQLDatabaseProvide
         return " ON CONFLICT DO NOTHING";
     }
 
+    @Override
+    protected String prepareNicknameLookup(Connection connection) throws SQLException {
+        var rs = connection.prepareStatement("SELECT i.indisvalid FROM pg_class c JOIN pg_index i ON i.indexrelid = c.oid WHERE c.relname = 'last_nickname_lower_index'")
+                .executeQuery();
+
+        var exists = rs.next();
+
+        if (exists && !rs.getBoolean("indisvalid")) {
+            // Left behind by an interrupted concurrent build
+            connection.prepareStatement("DROP INDEX CONCURRENTLY last_nickname_lower_index").executeUpdate();
+            exists = false;
+        }
+
+        if (!exists) {
+            plugin.getLogger().info("Creating the nickname index, this might take a while on large databases...");
+            // CONCURRENTLY does not block writes while the index is being built
+            connection.prepareStatement("CREATE INDEX CONCURRENTLY last_nickname_lower_index ON librepremium_data(LOWER(last_nickname))").executeUpdate();
+            plugin.getLogger().info("Nickname index created");
+        }
+
+        return "LOWER(last_nickname)=LOWER(?)";
+    }
+
     @Override
     protected String addUnique(String column) {
         return "CREATE UNIQUE INDEX %s_index ON librepremium_data(%s)".formatted(column, column);
     }
+
+    @Override
+    protected String addIndex(String column) {
+        return "CREATE INDEX IF NOT EXISTS %s_index ON librepremium_data(%s)".formatted(column, column);
+    }
 }
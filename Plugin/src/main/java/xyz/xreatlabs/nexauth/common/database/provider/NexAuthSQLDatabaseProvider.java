@@ -6,13 +6,17 @@
 
 package xyz.xreatlabs.nexauth.common.database.provider;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.jetbrains.annotations.Nullable;
 import xyz.xreatlabs.nexauth.api.crypto.HashedPassword;
 import xyz.xreatlabs.nexauth.api.database.User;
 import xyz.xreatlabs.nexauth.api.database.connector.SQLDatabaseConnector;
+import xyz.xreatlabs.nexauth.api.util.ThrowableFunction;
 import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 import xyz.xreatlabs.nexauth.common.database.AuthenticDatabaseProvider;
 import xyz.xreatlabs.nexauth.common.database.AuthenticUser;
+import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -21,18 +25,55 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.DATABASE_REPLICA_STICKINESS;
 
 public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvider<SQLDatabaseConnector> {
 
+    /**
+     * UPDATE statements for each combination of modified fields
+     */
+    private final Map<Integer, String> updateStatements = new ConcurrentHashMap<>();
+    /**
+     * Case-insensitive condition for the nickname, replaced by an indexed one once the index is ready
+     */
+    private volatile String nicknameCondition = "LOWER(last_nickname)=LOWER(?)";
+    /**
+     * Keys of recently written users, which are looked up on the primary database until the replicas catch up
+     */
+    private final Cache<String, Boolean> recentWrites;
+
     public NexAuthSQLDatabaseProvider(SQLDatabaseConnector connector, AuthenticNexAuth<?, ?> plugin) {
         super(connector, plugin);
+
+        recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(Math.max(0, plugin.getConfiguration().get(DATABASE_REPLICA_STICKINESS)), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Runs a lookup on a replica, or on the primary database if the looked up user has been written recently.
+     */
+    private <V> V runLookup(String key, ThrowableFunction<Connection, V, SQLException> function) {
+        return recentWrites.getIfPresent(key) == null ? connector.runReadQuery(function) : connector.runQuery(function);
+    }
+
+    private void recordWrite(User user) {
+        recentWrites.put("uuid:" + user.getUuid(), true);
+        recentWrites.put("name:" + user.getLastNickname().toLowerCase(), true);
+        if (user.getPremiumUUID() != null) recentWrites.put("premium:" + user.getPremiumUUID(), true);
+        if (user.getIp() != null) recentWrites.put("ip:" + user.getIp(), true);
     }
 
     @Override
     public Collection<User> getByIP(String ip) {
         plugin.reportMainThread();
-        return connector.runQuery(connection -> {
+        return runLookup("ip:" + ip, connection -> {
             var ps = connection.prepareStatement("SELECT * FROM librepremium_data WHERE ip=?");
 
             ps.setString(1, ip);
@@ -51,11 +92,25 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
         });
     }
 
+    @Override
+    public int countByIP(String ip) {
+        plugin.reportMainThread();
+        return runLookup("ip:" + ip, connection -> {
+            var ps = connection.prepareStatement("SELECT COUNT(*) FROM librepremium_data WHERE ip=?");
+
+            ps.setString(1, ip);
+
+            var rs = ps.executeQuery();
+
+            return rs.next() ? rs.getInt(1) : 0;
+        });
+    }
+
     @Override
     public User getByName(String name) {
         plugin.reportMainThread();
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM librepremium_data WHERE LOWER(last_nickname)=LOWER(?)");
+        return runLookup("name:" + name.toLowerCase(), connection -> {
+            var ps = connection.prepareStatement("SELECT * FROM librepremium_data WHERE " + nicknameCondition);
 
             ps.setString(1, name);
 
@@ -69,7 +124,7 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
     @Override
     public Collection<User> getAllUsers() {
         plugin.reportMainThread();
-        return connector.runQuery(connection -> {
+        return connector.runReadQuery(connection -> {
             var ps = connection.prepareStatement("SELECT * FROM librepremium_data");
 
             var rs = ps.executeQuery();
@@ -89,7 +144,7 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
     @Override
     public User getByUUID(UUID uuid) {
         plugin.reportMainThread();
-        return connector.runQuery(connection -> {
+        return runLookup("uuid:" + uuid, connection -> {
             var ps = connection.prepareStatement("SELECT * FROM librepremium_data WHERE uuid=?");
 
             ps.setString(1, uuid.toString());
@@ -104,7 +159,7 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
     @Override
     public User getByPremiumUUID(UUID uuid) {
         plugin.reportMainThread();
-        return connector.runQuery(connection -> {
+        return runLookup("premium:" + uuid, connection -> {
             var ps = connection.prepareStatement("SELECT * FROM librepremium_data WHERE premium_uuid=?");
 
             ps.setString(1, uuid.toString());
@@ -127,7 +182,7 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
             var joinDate = rs.getTimestamp("joined");
             var lastSeen = rs.getTimestamp("last_seen");
 
-            return new AuthenticUser(
+            var user = new AuthenticUser(
                     id,
                     premiumUUID == null ? null : UUID.fromString(premiumUUID),
                     hashedPassword == null ? null : new HashedPassword(
@@ -144,6 +199,11 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
                     rs.getString("last_server"),
                     rs.getString("email")
             );
+
+            // The user is in sync with the database
+            user.clearDirtyFields(AuthenticUser.ALL_FIELDS);
+
+            return user;
         } else return null;
     }
 
@@ -157,6 +217,9 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
 
             ps.executeUpdate();
         });
+
+        recordWrite(user);
+        if (user instanceof AuthenticUser authentic) authentic.clearDirtyFields(AuthenticUser.ALL_FIELDS);
     }
 
     @Override
@@ -193,25 +256,68 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
 
     @Override
     public void updateUser(User user) {
+        // Users which do not track their modifications have to be written completely
+        var fields = user instanceof AuthenticUser authentic ? authentic.getDirtyFields() : AuthenticUser.ALL_FIELDS;
+
+        if (fields == 0) return;
+
         plugin.reportMainThread();
         connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("UPDATE librepremium_data SET premium_uuid=?, hashed_password=?, salt=?, algo=?, last_nickname=?, joined=?, last_seen=?, secret=?, ip=?, last_authentication=?, last_server=?, email=? WHERE uuid=?");
-
-            ps.setString(1, user.getPremiumUUID() == null ? null : user.getPremiumUUID().toString());
-            ps.setString(2, user.getHashedPassword() == null ? null : user.getHashedPassword().hash());
-            ps.setString(3, user.getHashedPassword() == null ? null : user.getHashedPassword().salt());
-            ps.setString(4, user.getHashedPassword() == null ? null : user.getHashedPassword().algo());
-            ps.setString(5, user.getLastNickname());
-            ps.setTimestamp(6, user.getJoinDate());
-            ps.setTimestamp(7, user.getLastSeen());
-            ps.setString(8, user.getSecret());
-            ps.setString(9, user.getIp());
-            ps.setTimestamp(10, user.getLastAuthentication());
-            ps.setString(11, user.getLastServer());
-            ps.setString(12, user.getEmail());
-            ps.setString(13, user.getUuid().toString());
+            var ps = connection.prepareStatement(updateStatements.computeIfAbsent(fields, NexAuthSQLDatabaseProvider::createUpdateStatement));
+
+            var index = 1;
+
+            for (var field : AuthenticUser.Field.values()) {
+                if (!field.isIn(fields)) continue;
+
+                switch (field) {
+                    case PREMIUM_UUID ->
+                            ps.setString(index++, user.getPremiumUUID() == null ? null : user.getPremiumUUID().toString());
+                    case HASHED_PASSWORD -> {
+                        ps.setString(index++, user.getHashedPassword() == null ? null : user.getHashedPassword().hash());
+                        ps.setString(index++, user.getHashedPassword() == null ? null : user.getHashedPassword().salt());
+                        ps.setString(index++, user.getHashedPassword() == null ? null : user.getHashedPassword().algo());
+                    }
+                    case LAST_NICKNAME -> ps.setString(index++, user.getLastNickname());
+                    case JOIN_DATE -> ps.setTimestamp(index++, user.getJoinDate());
+                    case LAST_SEEN -> ps.setTimestamp(index++, user.getLastSeen());
+                    case SECRET -> ps.setString(index++, user.getSecret());
+                    case IP -> ps.setString(index++, user.getIp());
+                    case LAST_AUTHENTICATION -> ps.setTimestamp(index++, user.getLastAuthentication());
+                    case LAST_SERVER -> ps.setString(index++, user.getLastServer());
+                    case EMAIL -> ps.setString(index++, user.getEmail());
+                }
+            }
+
+            ps.setString(index, user.getUuid().toString());
             ps.executeUpdate();
         });
+
+        recordWrite(user);
+        if (user instanceof AuthenticUser authentic) authentic.clearDirtyFields(fields);
+    }
+
+    private static String createUpdateStatement(int fields) {
+        var columns = new StringJoiner(", ", "UPDATE librepremium_data SET ", " WHERE uuid=?");
+
+        for (var field : AuthenticUser.Field.values()) {
+            if (!field.isIn(fields)) continue;
+
+            columns.add(switch (field) {
+                case PREMIUM_UUID -> "premium_uuid=?";
+                case HASHED_PASSWORD -> "hashed_password=?, salt=?, algo=?";
+                case LAST_NICKNAME -> "last_nickname=?";
+                case JOIN_DATE -> "joined=?";
+                case LAST_SEEN -> "last_seen=?";
+                case SECRET -> "secret=?";
+                case IP -> "ip=?";
+                case LAST_AUTHENTICATION -> "last_authentication=?";
+                case LAST_SERVER -> "last_server=?";
+                case EMAIL -> "email=?";
+            });
+        }
+
+        return columns.toString();
     }
 
     @Override
@@ -224,6 +330,8 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
 
             ps.executeUpdate();
         });
+
+        recordWrite(user);
     }
 
     @Override
@@ -267,7 +375,31 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
                 connection.prepareStatement(addUnique("last_nickname")).executeUpdate();
             } catch (SQLException ignored) {
             }
+
+            try {
+                connection.prepareStatement(addIndex("ip")).executeUpdate();
+            } catch (SQLException ignored) {
+            }
         });
+
+        // Building the index might take a while on large tables, so we don't block the startup
+        GeneralUtil.runAsync(() -> {
+            try {
+                nicknameCondition = connector.runQuery(this::prepareNicknameLookup);
+            } catch (Exception e) {
+                var cause = GeneralUtil.getFurthestCause(e);
+                plugin.getLogger().warn("Failed to create the nickname index, lookups by nickname will be slower. Cause: %s: %s".formatted(cause.getClass().getSimpleName(), cause.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Creates an index usable for case-insensitive nickname lookups, if there is none yet.
+     *
+     * @return The condition matching the nickname, which is able to use the index
+     */
+    protected String prepareNicknameLookup(Connection connection) throws SQLException {
+        return nicknameCondition;
     }
 
     protected abstract List<String> getColumnNames(Connection connection) throws SQLException;
@@ -281,4 +413,6 @@ public abstract class NexAuthSQLDatabaseProvider extends AuthenticDatabaseProvid
     }
 
     protected abstract String addUnique(String column);
+
+    protected abstract String addIndex(String column);
 }
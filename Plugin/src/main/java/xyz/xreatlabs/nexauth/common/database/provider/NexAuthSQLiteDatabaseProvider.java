@@ -37,8 +37,21 @@ public class NexAuthSQLiteDatabaseProvider extends NexAuthSQLDatabaseProvider {
         return "OR IGNORE";
     }
 
+    @Override
+    protected String prepareNicknameLookup(Connection connection) throws SQLException {
+        connection.prepareStatement("CREATE INDEX IF NOT EXISTS last_nickname_lower_index ON librepremium_data(LOWER(last_nickname));").executeUpdate();
+
+        // SQLite uses expression indexes when the expression in the query is the same
+        return "LOWER(last_nickname)=LOWER(?)";
+    }
+
     @Override
     protected String addUnique(String column) {
         return "CREATE UNIQUE INDEX %s_index ON librepremium_data(%s);".formatted(column, column);
     }
+
+    @Override
+    protected String addIndex(String column) {
+        return "CREATE INDEX IF NOT EXISTS %s_index ON librepremium_data(%s);".formatted(column, column);
+    }
 }
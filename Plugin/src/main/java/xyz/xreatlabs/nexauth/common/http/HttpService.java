@@ -0,0 +1,235 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.http;
+
+import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.SequencedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.*;
+
+/**
+ * The single HTTP client used for all outbound requests.
+ * <p>
+ * Connections are kept alive and reused, HTTP/2 is negotiated when the server supports it, so concurrent requests to the same host share a single connection.
+ * The amount of requests in flight is limited per host, the excess requests are queued without blocking any thread.
+ * The timeout of a request covers the time it spends in the queue.
+ */
+public class HttpService {
+
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final Duration timeout;
+    private final int maximumRequestsPerHost;
+    private final String userAgent;
+    private final Map<String, HostLimiter> limiters;
+
+    public HttpService(AuthenticNexAuth<?, ?> plugin) {
+        var configuration = plugin.getConfiguration();
+
+        timeout = Duration.ofMillis(Math.max(1, configuration.get(HTTP_TIMEOUT)));
+        maximumRequestsPerHost = configuration.get(HTTP_MAXIMUM_REQUESTS_PER_HOST);
+        userAgent = "NexAuth/%s".formatted(plugin.getVersion());
+        limiters = new ConcurrentHashMap<>();
+
+        // The client runs many short tasks for each request, which never block, a few platform threads keep up with all of them
+        executor = configuration.get(EXECUTOR_VIRTUAL_THREADS)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("NexAuth HTTP #", 1).factory())
+                : Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), Thread.ofPlatform().daemon().name("NexAuth HTTP #", 1).factory());
+
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(timeout)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * @return A GET request to the URL with the default timeout, which can be overridden
+     */
+    public HttpRequest.Builder newRequest(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("User-Agent", userAgent);
+    }
+
+    /**
+     * Sends the request, waiting until a request to the host is allowed and the response is received, but no longer than the timeout of the request.
+     *
+     * @throws IOException If the request fails, {@link java.net.http.HttpTimeoutException} if it times out
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        var future = sendAsync(request, handler);
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.uri());
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Sends the request without blocking, it is queued if the limit of requests to the host has been reached.
+     * The returned future fails with {@link HttpTimeoutException} once the timeout of the request passes, whether the request is still queued or already sent.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        var future = new CompletableFuture<HttpResponse<T>>();
+        var limiter = limiters.computeIfAbsent(request.uri().getHost(), host -> new HostLimiter(maximumRequestsPerHost));
+        var deadline = request.timeout().orElse(timeout);
+
+        Runnable task = () -> {
+            // The request might have timed out, or been cancelled, while it was queued
+            if (future.isDone()) {
+                limiter.release();
+                return;
+            }
+
+            try {
+                var exchange = client.sendAsync(request, handler);
+
+                // Stop waiting for the response once the deadline passes
+                future.whenComplete((response, throwable) -> {
+                    if (throwable != null) exchange.cancel(true);
+                });
+
+                exchange.whenComplete((response, throwable) -> {
+                    limiter.release();
+
+                    if (throwable == null) {
+                        future.complete(response);
+                    } else {
+                        future.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+                    }
+                });
+            } catch (RuntimeException e) {
+                limiter.release();
+                future.completeExceptionally(e);
+            }
+        };
+
+        CompletableFuture.delayedExecutor(deadline.toMillis(), TimeUnit.MILLISECONDS, executor)
+                .execute(() -> future.completeExceptionally(new HttpTimeoutException("Request to %s timed out after %d ms".formatted(request.uri(), deadline.toMillis()))));
+        future.whenComplete((response, throwable) -> {
+            if (throwable != null) limiter.remove(task);
+        });
+
+        limiter.submit(task);
+
+        return future;
+    }
+
+    /**
+     * @return The amount of requests waiting for a free slot, across all hosts
+     */
+    public int getQueued() {
+        return limiters.values().stream().mapToInt(HostLimiter::getQueued).sum();
+    }
+
+    /**
+     * @return The amount of requests in flight, across all hosts
+     */
+    public int getActive() {
+        return limiters.values().stream().mapToInt(HostLimiter::getActive).sum();
+    }
+
+    public void close() {
+        client.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private class HostLimiter {
+
+        private final int limit;
+        private final SequencedSet<Runnable> queue;
+        private int active;
+
+        /**
+         * @param limit The maximum amount of requests in flight, zero or less for no limit
+         */
+        private HostLimiter(int limit) {
+            this.limit = limit;
+            this.queue = new LinkedHashSet<>();
+        }
+
+        private void submit(Runnable task) {
+            synchronized (this) {
+                if (limit > 0 && active >= limit) {
+                    queue.add(task);
+                    return;
+                }
+
+                active++;
+            }
+
+            task.run();
+        }
+
+        /**
+         * Removes a request, which timed out or was cancelled before it was sent, from the queue.
+         */
+        private synchronized void remove(Runnable task) {
+            queue.remove(task);
+        }
+
+        private void release() {
+            Runnable next;
+
+            synchronized (this) {
+                next = queue.isEmpty() ? null : queue.removeFirst();
+                // The slot is handed over to the next request
+                if (next == null) active--;
+            }
+
+            if (next == null) return;
+
+            // Not run inline, a response completing the previous request must not start a chain of requests on its thread
+            try {
+                executor.execute(next);
+            } catch (RejectedExecutionException e) {
+                next.run();
+            }
+        }
+
+        private synchronized int getQueued() {
+            return queue.size();
+        }
+
+        private synchronized int getActive() {
+            return active;
+        }
+
+    }
+
+}
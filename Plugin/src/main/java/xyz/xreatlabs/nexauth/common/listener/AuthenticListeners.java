@@ -20,6 +20,8 @@ import xyz.xreatlabs.nexauth.common.authorization.ProfileConflictResolutionStrat
 import xyz.xreatlabs.nexauth.common.command.InvalidCommandArgument;
 import xyz.xreatlabs.nexauth.common.config.ConfigurationKeys;
 import xyz.xreatlabs.nexauth.common.database.AuthenticUser;
+import xyz.xreatlabs.nexauth.common.database.DatabaseHealth;
+import xyz.xreatlabs.nexauth.common.database.DatabaseUnavailableException;
 
 import java.time.Duration;
 import xyz.xreatlabs.nexauth.common.event.events.AuthenticAuthenticatedEvent;
@@ -77,8 +79,10 @@ public class AuthenticListeners<Plugin extends AuthenticNexAuth<P, S>, P, S> {
 
         user.setLastSeen(Timestamp.valueOf(LocalDateTime.now()));
 
-        var finalUser = user;
-        plugin.delay(() -> plugin.getDatabaseProvider().updateUser(finalUser), 0);
+        plugin.getDatabaseProvider().updateUserAsync(user).exceptionally(e -> {
+            plugin.getLogger().error("Failed to update the last seen date of a player", e);
+            return null;
+        });
 
     }
 
@@ -88,6 +92,15 @@ public class AuthenticListeners<Plugin extends AuthenticNexAuth<P, S>, P, S> {
     }
 
     protected PreLoginResult onPreLogin(String username, InetAddress address) {
+        try {
+            return preLogin(username, address);
+        } catch (DatabaseUnavailableException e) {
+            plugin.getLogger().debug("Denying the join of %s, the database is unavailable: %s".formatted(username, e.getMessage()));
+            return new PreLoginResult(PreLoginState.DENIED, plugin.getMessages().getMessage("kick-database-unavailable"), null);
+        }
+    }
+
+    private PreLoginResult preLogin(String username, InetAddress address) {
         if (username.length() > 16 || !NAME_PATTERN.matcher(username).matches()) {
             return new PreLoginResult(PreLoginState.DENIED, plugin.getMessages().getMessage("kick-illegal-username"), null);
         }
@@ -211,6 +224,11 @@ public class AuthenticListeners<Plugin extends AuthenticNexAuth<P, S>, P, S> {
                 ));
             }
         } else if (generate) {
+            // Do not create new users, which could conflict with users we cannot see right now
+            if (plugin.getDatabaseHealth() != DatabaseHealth.HEALTHY) {
+                throw new InvalidCommandArgument(plugin.getMessages().getMessage("kick-database-unavailable"));
+            }
+
             var minLength = plugin.getConfiguration().get(ConfigurationKeys.MINIMUM_USERNAME_LENGTH);
             if (username.length() < minLength) {
                 throw new InvalidCommandArgument(plugin.getMessages().getMessage("kick-short-username",
@@ -220,7 +238,7 @@ public class AuthenticListeners<Plugin extends AuthenticNexAuth<P, S>, P, S> {
 
             var ipLimit = plugin.getConfiguration().get(ConfigurationKeys.IP_LIMIT);
             if (ipLimit > 0) {
-                var ipCount = plugin.getDatabaseProvider().getByIP(ip.getHostAddress()).size(); // Ideally, this should be a count query, but I'm too lazy to implement that and the performance impact is negligible.
+                var ipCount = plugin.getDatabaseProvider().countByIP(ip.getHostAddress());
 
                 if (ipCount >= ipLimit) {
                     throw new InvalidCommandArgument(plugin.getMessages().getMessage("kick-ip-limit",
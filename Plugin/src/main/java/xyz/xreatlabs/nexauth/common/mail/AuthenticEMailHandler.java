@@ -55,7 +55,9 @@ public class AuthenticEMailHandler implements EmailHandler {
 
             mail.setHtmlMsg(content);
             Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
-            mail.send();
+            try (var ignored = plugin.getSmtpBulkhead().acquire()) {
+                mail.send();
+            }
         } catch (EmailException e) {
             throw new RuntimeException(e);
         }
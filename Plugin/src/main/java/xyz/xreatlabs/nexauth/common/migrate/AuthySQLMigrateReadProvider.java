@@ -12,56 +12,54 @@ import xyz.xreatlabs.nexauth.api.database.User;
 import xyz.xreatlabs.nexauth.api.database.connector.SQLDatabaseConnector;
 import xyz.xreatlabs.nexauth.common.database.AuthenticUser;
 
+import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.Instant;
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.UUID;
 
-public class AuthySQLMigrateReadProvider extends SQLMigrateReadProvider {
+public class AuthySQLMigrateReadProvider extends StreamingSQLMigrateReadProvider {
     public AuthySQLMigrateReadProvider(String tableName, Logger logger, SQLDatabaseConnector connector) {
         super(tableName, logger, connector);
     }
 
     @Override
-    public Collection<User> getAllUsers() {
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM `%s`".formatted(tableName));
-
-            var rs = ps.executeQuery();
-
-            var users = new HashSet<User>();
+    protected String getKeyColumn() {
+        return "uuid";
+    }
 
-            while (rs.next()) {
-                try {
-                    var uuid = rs.getString("uuid");
-                    var username = rs.getString("username");
-                    var ip = rs.getString("ip");
-                    var passwordHash = rs.getString("password");
+    @Override
+    protected String getSelectQuery() {
+        return "SELECT * FROM `%s`".formatted(tableName);
+    }
 
-                    if (uuid == null || username == null) continue;
+    @Override
+    protected User readUser(ResultSet rs) {
+        try {
+            var uuid = rs.getString("uuid");
+            var username = rs.getString("username");
+            var ip = rs.getString("ip");
+            var passwordHash = rs.getString("password");
 
-                    var password = new HashedPassword(passwordHash, null, "SHA-256");
+            if (uuid == null || username == null) return null;
 
-                    users.add(new AuthenticUser(
-                            UUID.fromString(uuid),
-                            null,
-                            password,
-                            username,
-                            Timestamp.from(Instant.now()),
-                            Timestamp.from(Instant.now()),
-                            null,
-                            ip,
-                            null,
-                            null,
-                            null
-                    ));
-                } catch (Exception e) {
-                    logger.error("Error while migrating user from Authy db, omitting");
-                }
-            }
+            var password = new HashedPassword(passwordHash, null, "SHA-256");
 
-            return users;
-        });
+            return new AuthenticUser(
+                    UUID.fromString(uuid),
+                    null,
+                    password,
+                    username,
+                    Timestamp.from(Instant.now()),
+                    Timestamp.from(Instant.now()),
+                    null,
+                    ip,
+                    null,
+                    null,
+                    null
+            );
+        } catch (Exception e) {
+            logger.error("Error while migrating user from Authy db, omitting");
+            return null;
+        }
     }
 }
@@ -13,70 +13,67 @@ import xyz.xreatlabs.nexauth.api.database.connector.SQLDatabaseConnector;
 import xyz.xreatlabs.nexauth.common.database.AuthenticUser;
 import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
 
-import java.util.Collection;
-import java.util.HashSet;
+import java.sql.ResultSet;
 
-public class CrazyLoginSQLMigrateReadProvider extends SQLMigrateReadProvider {
+
+public class CrazyLoginSQLMigrateReadProvider extends StreamingSQLMigrateReadProvider {
 
     public CrazyLoginSQLMigrateReadProvider(String tableName, Logger logger, SQLDatabaseConnector connector) {
         super(tableName, logger, connector);
     }
 
     @Override
-    public Collection<User> getAllUsers() {
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM %s".formatted(tableName));
-
-            var rs = ps.executeQuery();
-
-            var users = new HashSet<User>();
-
-            while (rs.next()) {
-                try {
-                    var nickname = rs.getString("name");
-                    var passwordRaw = rs.getString("password");
-                    var lastSeen = rs.getTimestamp("lastAction");
-
-                    if (nickname == null) continue;
-
-                    HashedPassword password = null;
-
-                    if (passwordRaw != null) {
-                        if (passwordRaw.startsWith("$SHA$")) {
-                            var split = passwordRaw.split("\\$");
-
-                            var algo = "SHA-256";
-                            var salt = split[2];
-                            var hash = split[3];
-
-                            password = new HashedPassword(hash, salt, algo);
-                        } else {
-                            logger.error("User " + nickname + " has an invalid password hash");
-                        }
-                    }
-
-                    users.add(
-                            new AuthenticUser(
-                                    GeneralUtil.getCrackedUUIDFromName(nickname),
-                                    null,
-                                    password,
-                                    nickname,
-                                    null,
-                                    lastSeen,
-                                    null,
-                                    null,
-                                    null,
-                                    null,
-                                    null
-                            )
-                    );
-
-                } catch (Exception e) {
-                    logger.error("Failed to read user from CrazyLogin db, omitting");
+    protected String getKeyColumn() {
+        return "name";
+    }
+
+    @Override
+    protected String getSelectQuery() {
+        return "SELECT * FROM %s".formatted(tableName);
+    }
+
+    @Override
+    protected User readUser(ResultSet rs) {
+        try {
+            var nickname = rs.getString("name");
+            var passwordRaw = rs.getString("password");
+            var lastSeen = rs.getTimestamp("lastAction");
+
+            if (nickname == null) return null;
+
+            HashedPassword password = null;
+
+            if (passwordRaw != null) {
+                if (passwordRaw.startsWith("$SHA$")) {
+                    var split = passwordRaw.split("\\$");
+
+                    var algo = "SHA-256";
+                    var salt = split[2];
+                    var hash = split[3];
+
+                    password = new HashedPassword(hash, salt, algo);
+                } else {
+                    logger.error("User " + nickname + " has an invalid password hash");
                 }
             }
 
-            return users;
-        });
+            return new AuthenticUser(
+                    GeneralUtil.getCrackedUUIDFromName(nickname),
+                    null,
+                    password,
+                    nickname,
+                    null,
+                    lastSeen,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null
+            );
+
+        } catch (Exception e) {
+            logger.error("Failed to read user from CrazyLogin db, omitting");
+            return null;
+        }
     }
 }
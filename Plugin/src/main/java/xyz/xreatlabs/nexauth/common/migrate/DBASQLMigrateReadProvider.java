@@ -12,66 +12,62 @@ import xyz.xreatlabs.nexauth.api.database.User;
 import xyz.xreatlabs.nexauth.api.database.connector.SQLDatabaseConnector;
 import xyz.xreatlabs.nexauth.common.database.AuthenticUser;
 
-import java.util.Collection;
-import java.util.HashSet;
+import java.sql.ResultSet;
 import java.util.UUID;
 
-public class DBASQLMigrateReadProvider extends SQLMigrateReadProvider {
+public class DBASQLMigrateReadProvider extends StreamingSQLMigrateReadProvider {
 
     public DBASQLMigrateReadProvider(String tableName, Logger logger, SQLDatabaseConnector connector) {
         super(tableName, logger, connector);
     }
 
     @Override
-    public Collection<User> getAllUsers() {
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM `%s`".formatted(tableName));
-
-            var rs = ps.executeQuery();
-
-            var users = new HashSet<User>();
+    protected String getKeyColumn() {
+        return "uuid";
+    }
 
-            while (rs.next()) {
-                try {
-                    var uuid = UUID.fromString(rs.getString("uuid"));
-                    var name = rs.getString("name");
+    @Override
+    protected String getSelectQuery() {
+        return "SELECT * FROM `%s`".formatted(tableName);
+    }
 
-                    var hash = rs.getString("password");
-                    var salt = rs.getString("salt");
+    @Override
+    protected User readUser(ResultSet rs) {
+        try {
+            var uuid = UUID.fromString(rs.getString("uuid"));
+            var name = rs.getString("name");
 
-                    HashedPassword password;
+            var hash = rs.getString("password");
+            var salt = rs.getString("salt");
 
-                    if (hash != null && salt != null) {
-                        password = new HashedPassword(
-                                hash,
-                                salt,
-                                "SHA-512"
-                        );
-                    } else password = null;
+            HashedPassword password;
 
-                    users.add(
-                            new AuthenticUser(
-                                    uuid,
-                                    rs.getBoolean("premium") ? uuid : null,
-                                    password,
-                                    name,
-                                    rs.getTimestamp("firstjoin"),
-                                    rs.getTimestamp("lastjoin"),
-                                    null,
-                                    null,
-                                    null,
-                                    null,
-                                    null
-                            )
-                    );
+            if (hash != null && salt != null) {
+                password = new HashedPassword(
+                        hash,
+                        salt,
+                        "SHA-512"
+                );
+            } else password = null;
 
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    logger.error("Failed to read user from DBA db, omitting");
-                }
-            }
+            return new AuthenticUser(
+                    uuid,
+                    rs.getBoolean("premium") ? uuid : null,
+                    password,
+                    name,
+                    rs.getTimestamp("firstjoin"),
+                    rs.getTimestamp("lastjoin"),
+                    null,
+                    null,
+                    null,
+                    null,
+                    null
+            );
 
-            return users;
-        });
+        } catch (Exception e) {
+            e.printStackTrace();
+            logger.error("Failed to read user from DBA db, omitting");
+            return null;
+        }
     }
 }
@@ -51,6 +51,22 @@ public class FastLoginSQLMigrateReadProvider extends SQLMigrateReadProvider {
                 }
             }
 
+            // Resolve all the conflicting names at once, instead of asking mojang about every premium UUID
+            var conflicting = premiumUsers.asMap().values().stream()
+                    .filter(names -> names.size() > 1)
+                    .flatMap(Collection::stream)
+                    .toList();
+
+            Map<String, PremiumUser> resolved = Map.of();
+
+            if (!conflicting.isEmpty()) {
+                try {
+                    resolved = provider.getUsersForNames(conflicting);
+                } catch (PremiumException e) {
+                    logger.warn("Failed to resolve the conflicting names in bulk, looking up the premium UUIDs one by one");
+                }
+            }
+
             for (Map.Entry<UUID, Collection<String>> entry : premiumUsers.asMap().entrySet()) {
                 var names = entry.getValue();
                 var premiumUUID = entry.getKey();
@@ -67,7 +83,16 @@ public class FastLoginSQLMigrateReadProvider extends SQLMigrateReadProvider {
                     logger.warn("Users %s share the same premium UUID %s, contacting mojang to find the owner".formatted(Arrays.toString(names.toArray()), premiumUUID));
                     PremiumUser user = null;
 
-                    while (true) {
+                    for (String s : names) {
+                        var candidate = resolved.get(s);
+
+                        if (candidate != null && premiumUUID.equals(candidate.uuid())) {
+                            user = candidate;
+                            break;
+                        }
+                    }
+
+                    while (user == null) {
                         try {
                             user = provider.getUserForUUID(premiumUUID);
                             break;
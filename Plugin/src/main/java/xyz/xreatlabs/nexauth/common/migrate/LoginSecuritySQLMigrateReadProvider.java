@@ -13,57 +13,55 @@ import xyz.xreatlabs.nexauth.api.database.connector.SQLDatabaseConnector;
 import xyz.xreatlabs.nexauth.common.database.AuthenticUser;
 import xyz.xreatlabs.nexauth.common.util.CryptoUtil;
 
-import java.util.Collection;
-import java.util.HashSet;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.UUID;
 
-public class LoginSecuritySQLMigrateReadProvider extends SQLMigrateReadProvider {
+public class LoginSecuritySQLMigrateReadProvider extends StreamingSQLMigrateReadProvider {
     public LoginSecuritySQLMigrateReadProvider(String tableName, Logger logger, SQLDatabaseConnector connector) {
         super(tableName, logger, connector);
     }
 
     @Override
-    public Collection<User> getAllUsers() {
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM `%s`".formatted(tableName));
-
-            var rs = ps.executeQuery();
-
-            var users = new HashSet<User>();
+    protected String getKeyColumn() {
+        return "unique_user_id";
+    }
 
-            while (rs.next()) {
-                var uniqueId = UUID.fromString(rs.getString("unique_user_id"));
-                var lastNickname = rs.getString("last_name");
-                var lastSeen = rs.getTimestamp("last_login");
-                var firstSeen = rs.getTimestamp("registration_date");
-                var rawPassword = rs.getString("password");
-                var hashingAlgorithm = rs.getInt("hashing_algorithm");
+    @Override
+    protected String getSelectQuery() {
+        return "SELECT * FROM `%s`".formatted(tableName);
+    }
 
-                HashedPassword hashed;
+    @Override
+    protected User readUser(ResultSet rs) throws SQLException {
+        var uniqueId = UUID.fromString(rs.getString("unique_user_id"));
+        var lastNickname = rs.getString("last_name");
+        var lastSeen = rs.getTimestamp("last_login");
+        var firstSeen = rs.getTimestamp("registration_date");
+        var rawPassword = rs.getString("password");
+        var hashingAlgorithm = rs.getInt("hashing_algorithm");
 
-                if (hashingAlgorithm == 7) {
-                    hashed = CryptoUtil.convertFromBCryptRaw(rawPassword);
-                } else {
-                    logger.warn("User %s has invalid algorithm %s, omitting".formatted(lastNickname, hashingAlgorithm));
-                    continue;
-                }
+        HashedPassword hashed;
 
-                users.add(new AuthenticUser(
-                        uniqueId,
-                        null,
-                        hashed,
-                        lastNickname,
-                        firstSeen,
-                        lastSeen,
-                        null,
-                        null,
-                        lastSeen,
-                        null,
-                        null
-                ));
-            }
+        if (hashingAlgorithm == 7) {
+            hashed = CryptoUtil.convertFromBCryptRaw(rawPassword);
+        } else {
+            logger.warn("User %s has invalid algorithm %s, omitting".formatted(lastNickname, hashingAlgorithm));
+            return null;
+        }
 
-            return users;
-        });
+        return new AuthenticUser(
+                uniqueId,
+                null,
+                hashed,
+                lastNickname,
+                firstSeen,
+                lastSeen,
+                null,
+                null,
+                lastSeen,
+                null,
+                null
+        );
     }
 }
@@ -14,78 +14,76 @@ import xyz.xreatlabs.nexauth.common.database.AuthenticUser;
 import xyz.xreatlabs.nexauth.common.util.CryptoUtil;
 import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
 
+import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.Instant;
-import java.util.Collection;
-import java.util.HashSet;
 
-public class NLoginSQLMigrateReadProvider extends SQLMigrateReadProvider {
+public class NLoginSQLMigrateReadProvider extends StreamingSQLMigrateReadProvider {
     public NLoginSQLMigrateReadProvider(String tableName, Logger logger, SQLDatabaseConnector connector) {
         super(tableName, logger, connector);
     }
 
     @Override
-    public Collection<User> getAllUsers() {
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM `%s`".formatted(tableName));
-
-            var rs = ps.executeQuery();
-
-            var users = new HashSet<User>();
-
-            while (rs.next()) {
-                try {
-                    var uniqueIdString = rs.getString("unique_id");
-                    var premiumIdString = rs.getString("mojang_id");
-                    var lastNickname = rs.getString("last_name");
-                    var lastSeen = rs.getTimestamp("last_seen");
-                    var firstSeen = rs.getTimestamp("creation_date");
-                    var rawPassword = rs.getString("password");
-                    var ip = rs.getString("last_ip");
-
-                    if (lastNickname == null) continue; //Yes this may happen
-                    if (uniqueIdString == null) continue; //Yes this may happen
+    protected String getKeyColumn() {
+        return "ai";
+    }
 
-                    HashedPassword password = null;
+    @Override
+    protected String getSelectQuery() {
+        return "SELECT * FROM `%s`".formatted(tableName);
+    }
 
-                    if (rawPassword != null) {
-                        if (rawPassword.startsWith("$SHA512$")) {
-                            var split = rawPassword.substring(8).split("\\$");
-                            password = new HashedPassword(
-                                    split[0],
-                                    split[1],
-                                    "SHA-512"
-                            );
-                        }else if(rawPassword.startsWith("$2a$")){
-                            password = CryptoUtil.convertFromBCryptRaw(rawPassword);
-                        }else{
-                            logger.error("User %s has invalid algorithm %s, omitting".formatted(lastNickname, rawPassword));
-                            continue;
-                        }
+    @Override
+    protected User readUser(ResultSet rs) {
+        try {
+            var uniqueIdString = rs.getString("unique_id");
+            var premiumIdString = rs.getString("mojang_id");
+            var lastNickname = rs.getString("last_name");
+            var lastSeen = rs.getTimestamp("last_seen");
+            var firstSeen = rs.getTimestamp("creation_date");
+            var rawPassword = rs.getString("password");
+            var ip = rs.getString("last_ip");
 
-                    }
+            if (lastNickname == null) return null; //Yes this may happen
+            if (uniqueIdString == null) return null; //Yes this may happen
 
-                    users.add(new AuthenticUser(
-                            GeneralUtil.fromUnDashedUUID(uniqueIdString),
-                            premiumIdString == null ? null : GeneralUtil.fromUnDashedUUID(premiumIdString),
-                            password,
-                            lastNickname,
-                            firstSeen,
-                            lastSeen,
-                            null,
-                            ip,
-                            Timestamp.from(Instant.EPOCH),
-                            null,
-                            null
-                    ));
+            HashedPassword password = null;
 
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    logger.error("Error while reading user from database");
+            if (rawPassword != null) {
+                if (rawPassword.startsWith("$SHA512$")) {
+                    var split = rawPassword.substring(8).split("\\$");
+                    password = new HashedPassword(
+                            split[0],
+                            split[1],
+                            "SHA-512"
+                    );
+                }else if(rawPassword.startsWith("$2a$")){
+                    password = CryptoUtil.convertFromBCryptRaw(rawPassword);
+                }else{
+                    logger.error("User %s has invalid algorithm %s, omitting".formatted(lastNickname, rawPassword));
+                    return null;
                 }
+
             }
 
-            return users;
-        });
+            return new AuthenticUser(
+                    GeneralUtil.fromUnDashedUUID(uniqueIdString),
+                    premiumIdString == null ? null : GeneralUtil.fromUnDashedUUID(premiumIdString),
+                    password,
+                    lastNickname,
+                    firstSeen,
+                    lastSeen,
+                    null,
+                    ip,
+                    Timestamp.from(Instant.EPOCH),
+                    null,
+                    null
+            );
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            logger.error("Error while reading user from database");
+            return null;
+        }
     }
 }
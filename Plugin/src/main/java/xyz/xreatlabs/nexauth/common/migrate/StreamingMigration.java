@@ -0,0 +1,239 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.migrate;
+
+import xyz.xreatlabs.nexauth.api.Logger;
+import xyz.xreatlabs.nexauth.api.database.User;
+import xyz.xreatlabs.nexauth.api.database.WriteDatabaseProvider;
+import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.MIGRATION_CHUNK_SIZE;
+import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.MIGRATION_PARALLELISM;
+
+/**
+ * Migrates the users in chunks, which are inserted in parallel, while the old table is read using a cursor.
+ * <p>
+ * The old table is read in the order of a unique column. After each chunk is inserted, the last key migrated without a gap is saved into a checkpoint file.
+ * An interrupted migration continues after this key when started again. The inserts ignore duplicates, so chunks inserted after the gap are harmless to insert again.
+ */
+public class StreamingMigration {
+
+    private static final long PROGRESS_INTERVAL = 5000;
+
+    private final Logger logger;
+    private final StreamingSQLMigrateReadProvider from;
+    private final WriteDatabaseProvider to;
+    private final int chunkSize;
+    private final int parallelism;
+    private final File checkpointFile;
+    private final String checkpointId;
+    private final Map<Long, Checkpoint> completedChunks;
+    private final AtomicReference<Throwable> failure;
+    private long nextChunk;
+    private long committedRows;
+    private Object committedKey;
+    private long migratedUsers;
+    private long startRows;
+    private long startTime;
+    private long lastProgress;
+    private long totalRows;
+
+    public StreamingMigration(AuthenticNexAuth<?, ?> plugin, StreamingSQLMigrateReadProvider from, WriteDatabaseProvider to) {
+        this.logger = plugin.getLogger();
+        this.from = from;
+        this.to = to;
+        this.chunkSize = Math.max(1, plugin.getConfiguration().get(MIGRATION_CHUNK_SIZE));
+        this.parallelism = Math.max(1, plugin.getConfiguration().get(MIGRATION_PARALLELISM));
+        this.checkpointFile = new File(plugin.getDataFolder(), "migration-checkpoint.txt");
+        this.checkpointId = from.getClass().getSimpleName() + ":" + from.getTableName();
+        this.completedChunks = new HashMap<>();
+        this.failure = new AtomicReference<>();
+    }
+
+    public void run() {
+        try {
+            totalRows = from.countRows();
+        } catch (Exception e) {
+            logger.warn("Failed to count the rows of the old database, the ETA will not be available");
+            totalRows = -1;
+        }
+
+        readCheckpoint();
+
+        if (committedKey != null) {
+            logger.info("Resuming the interrupted migration after %d rows, from key %s".formatted(committedRows, committedKey));
+        }
+
+        startRows = committedRows;
+        startTime = lastProgress = System.currentTimeMillis();
+
+        var executor = Executors.newFixedThreadPool(parallelism);
+        // Bounds the amount of chunks held in memory
+        var permits = new Semaphore(parallelism * 2);
+
+        try {
+            var chunk = new ArrayList<User>(chunkSize);
+            var chunkIndex = new long[]{0};
+            var row = new long[]{committedRows};
+            var lastKey = new Object[]{committedKey};
+
+            from.streamUsers(committedKey, (key, user) -> {
+                if (failure.get() != null) throw new IllegalStateException("Aborting the migration, inserting a chunk failed");
+
+                row[0]++;
+                lastKey[0] = key;
+                if (user != null) chunk.add(user);
+
+                if (row[0] % chunkSize == 0) {
+                    submit(executor, permits, new ArrayList<>(chunk), chunkIndex[0]++, new Checkpoint(row[0], key));
+                    chunk.clear();
+                }
+            });
+
+            if (row[0] % chunkSize != 0) {
+                submit(executor, permits, chunk, chunkIndex[0], new Checkpoint(row[0], lastKey[0]));
+            }
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new RuntimeException("Migration failed, it will be resumed after %d rows on the next attempt".formatted(committedRows), failure.get());
+        }
+
+        logger.info("Migrated %d users from %d rows in %s".formatted(migratedUsers, committedRows, formatDuration(System.currentTimeMillis() - startTime)));
+
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            logger.warn("Failed to delete the migration checkpoint, please delete %s manually".formatted(checkpointFile.getName()));
+        }
+    }
+
+    private void submit(ExecutorService executor, Semaphore permits, List<User> chunk, long index, Checkpoint end) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a chunk to be inserted", e);
+        }
+
+        executor.execute(() -> {
+            try {
+                if (failure.get() != null) return;
+                if (!chunk.isEmpty()) to.insertUsers(chunk);
+                complete(index, end, chunk.size());
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    private synchronized void complete(long index, Checkpoint checkpoint, int users) {
+        completedChunks.put(index, checkpoint);
+        migratedUsers += users;
+
+        var advanced = false;
+
+        Checkpoint end;
+        while ((end = completedChunks.remove(nextChunk)) != null) {
+            committedRows = end.rows();
+            committedKey = end.key();
+            nextChunk++;
+            advanced = true;
+        }
+
+        if (advanced) writeCheckpoint();
+
+        var now = System.currentTimeMillis();
+
+        if (now - lastProgress >= PROGRESS_INTERVAL) {
+            lastProgress = now;
+            logProgress(now);
+        }
+    }
+
+    private void logProgress(long now) {
+        var rows = committedRows - startRows;
+        var rate = rows * 1000D / Math.max(1, now - startTime);
+
+        if (totalRows < 0 || rate <= 0) {
+            logger.info("Migrated %d rows (%.0f rows/s)".formatted(committedRows, rate));
+            return;
+        }
+
+        var eta = (long) ((totalRows - committedRows) / rate * 1000);
+
+        logger.info("Migrated %d/%d rows, %.1f%% (%.0f rows/s, ETA %s)".formatted(committedRows, totalRows, committedRows * 100D / Math.max(1, totalRows), rate, formatDuration(eta)));
+    }
+
+    private void readCheckpoint() {
+        if (!checkpointFile.exists()) return;
+
+        try {
+            var lines = Files.readAllLines(checkpointFile.toPath());
+
+            if (lines.size() < 4 || !lines.get(0).equals(checkpointId)) {
+                logger.warn("Ignoring the migration checkpoint, it belongs to a different migration");
+                return;
+            }
+
+            var rows = Long.parseLong(lines.get(1).trim());
+            // The type of the key is kept, so it's compared to the key column the same way it was read
+            var key = switch (lines.get(2).trim()) {
+                case "number" -> Long.parseLong(lines.get(3));
+                case "string" -> lines.get(3);
+                default -> throw new NumberFormatException("Unknown key type " + lines.get(2));
+            };
+
+            committedRows = rows;
+            committedKey = key;
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Failed to read the migration checkpoint, starting from the beginning");
+        }
+    }
+
+    private void writeCheckpoint() {
+        var keyType = committedKey instanceof Number ? "number" : "string";
+
+        try {
+            Files.writeString(checkpointFile.toPath(), checkpointId + "\n" + committedRows + "\n" + keyType + "\n" + committedKey + "\n");
+        } catch (IOException e) {
+            logger.warn("Failed to write the migration checkpoint: " + e.getMessage());
+        }
+    }
+
+    private static String formatDuration(long millis) {
+        var duration = Duration.ofMillis(millis);
+        return "%02d:%02d:%02d".formatted(duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart());
+    }
+
+    private record Checkpoint(long rows, Object key) {
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.migrate;
+
+import org.jetbrains.annotations.Nullable;
+import xyz.xreatlabs.nexauth.api.Logger;
+import xyz.xreatlabs.nexauth.api.database.User;
+import xyz.xreatlabs.nexauth.api.database.connector.SQLDatabaseConnector;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * Reads the old table row by row, ordered by a unique column, so an interrupted migration can continue after the last migrated key.
+ */
+public abstract class StreamingSQLMigrateReadProvider extends SQLMigrateReadProvider {
+
+    private static final int FETCH_SIZE = 1000;
+
+    public StreamingSQLMigrateReadProvider(String tableName, Logger logger, SQLDatabaseConnector connector) {
+        super(tableName, logger, connector);
+    }
+
+    /**
+     * @return The query selecting all the rows of the old table, the key condition and the ordering are appended to it
+     */
+    protected String getSelectQuery() {
+        return "SELECT * FROM %s".formatted(tableName);
+    }
+
+    /**
+     * @return A column of the old table, which is unique and never null
+     */
+    protected abstract String getKeyColumn();
+
+    /**
+     * Converts the current row of the old database.
+     *
+     * @return The user, or null if the row should be omitted
+     */
+    @Nullable
+    protected abstract User readUser(ResultSet rs) throws SQLException;
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    @Override
+    public Collection<User> getAllUsers() {
+        var users = new HashSet<User>();
+
+        streamUsers(null, (key, user) -> {
+            if (user != null) users.add(user);
+        });
+
+        return users;
+    }
+
+    /**
+     * @return The amount of rows in the old table
+     */
+    public long countRows() {
+        return connector.runQuery(connection -> {
+            var rs = connection.prepareStatement("SELECT COUNT(*) FROM (%s) counted".formatted(getSelectQuery())).executeQuery();
+
+            return rs.next() ? rs.getLong(1) : 0;
+        });
+    }
+
+    /**
+     * Reads the old table in the order of the key column using a cursor, so the table doesn't have to fit into memory.
+     *
+     * @param after    The key to continue after, used when resuming an interrupted migration, or null to read the whole table
+     * @param consumer Receives the key of the row and the user read from it
+     */
+    public void streamUsers(@Nullable Object after, RowConsumer consumer) {
+        var key = getKeyColumn();
+        var query = getSelectQuery() + (after == null ? "" : " WHERE %s > ?".formatted(key)) + " ORDER BY %s".formatted(key);
+
+        connector.runQuery(connection -> {
+            var autoCommit = connection.getAutoCommit();
+            // PostgreSQL only uses a cursor inside a transaction
+            connection.setAutoCommit(false);
+
+            try (var ps = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                if (after != null) ps.setObject(1, after);
+
+                try (var rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(rs.getObject(key), readUser(rs));
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    public interface RowConsumer {
+
+        void accept(Object key, @Nullable User user);
+
+    }
+}
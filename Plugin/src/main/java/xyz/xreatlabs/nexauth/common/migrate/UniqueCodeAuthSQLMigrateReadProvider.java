@@ -14,11 +14,10 @@ import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 import xyz.xreatlabs.nexauth.common.database.AuthenticUser;
 import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
 
-import java.util.Collection;
-import java.util.HashSet;
+import java.sql.ResultSet;
 import java.util.UUID;
 
-public class UniqueCodeAuthSQLMigrateReadProvider extends SQLMigrateReadProvider {
+public class UniqueCodeAuthSQLMigrateReadProvider extends StreamingSQLMigrateReadProvider {
 
     private final AuthenticNexAuth<?, ?> plugin;
 
@@ -28,65 +27,64 @@ public class UniqueCodeAuthSQLMigrateReadProvider extends SQLMigrateReadProvider
     }
 
     @Override
-    public Collection<User> getAllUsers() {
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM `%s`".formatted(tableName));
-
-            var rs = ps.executeQuery();
+    protected String getKeyColumn() {
+        return "name";
+    }
 
-            var users = new HashSet<User>();
+    @Override
+    protected String getSelectQuery() {
+        return "SELECT * FROM `%s`".formatted(tableName);
+    }
 
-            while (rs.next()) {
-                try {
-                    var name = rs.getString("name");
-                    var password = rs.getString("password"); // Unfortunately, this godforsaken plugin stores passwords in plain text
-                    var premium = rs.getBoolean("premium");
+    @Override
+    protected User readUser(ResultSet rs) {
+        try {
+            var name = rs.getString("name");
+            var password = rs.getString("password"); // Unfortunately, this godforsaken plugin stores passwords in plain text
+            var premium = rs.getBoolean("premium");
 
-                    if (password.equals("n"))
-                        password = null; //The horrible plugin uses "n" as an indicator for null, makes me think what happens when someone uses "n" as a password
+            if (password.equals("n"))
+                password = null; //The horrible plugin uses "n" as an indicator for null, makes me think what happens when someone uses "n" as a password
 
-                    var hashed = password == null
-                            ? null
-                            : plugin.getDefaultCryptoProvider().createHash(password);
+            var hashed = password == null
+                    ? null
+                    : plugin.getDefaultCryptoProvider().createHash(password);
 
-                    var uuid = GeneralUtil.getCrackedUUIDFromName(name);
-                    UUID premiumUUID = null;
+            var uuid = GeneralUtil.getCrackedUUIDFromName(name);
+            UUID premiumUUID = null;
 
-                    if (premium) {
-                        logger.info("Attempting to get premium UUID for " + name);
-                        try {
-                            var premiumUser = plugin.getPremiumProvider().getUserForName(name);
-                            if (premiumUser == null) {
-                                logger.warn("User " + name + " is no longer premium, skipping");
-                            } else {
-                                premiumUUID = premiumUser.uuid();
-                                logger.info("Got premium UUID for " + name + ": " + uuid);
-                            }
-                        } catch (PremiumException e) {
-                            logger.error("Error while getting premium UUID for " + name + ": " + e.getMessage());
-                        }
+            if (premium) {
+                logger.info("Attempting to get premium UUID for " + name);
+                try {
+                    var premiumUser = plugin.getPremiumProvider().getUserForName(name);
+                    if (premiumUser == null) {
+                        logger.warn("User " + name + " is no longer premium, skipping");
+                    } else {
+                        premiumUUID = premiumUser.uuid();
+                        logger.info("Got premium UUID for " + name + ": " + uuid);
                     }
-
-                    users.add(new AuthenticUser(
-                            premiumUUID == null ? uuid : premiumUUID,
-                            premiumUUID,
-                            hashed,
-                            name,
-                            null,
-                            null,
-                            null,
-                            null,
-                            null,
-                            null,
-                            null
-                    ));
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    logger.error("Error while reading user from database");
+                } catch (PremiumException e) {
+                    logger.error("Error while getting premium UUID for " + name + ": " + e.getMessage());
                 }
             }
 
-            return users;
-        });
+            return new AuthenticUser(
+                    premiumUUID == null ? uuid : premiumUUID,
+                    premiumUUID,
+                    hashed,
+                    name,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null
+            );
+        } catch (Exception e) {
+            e.printStackTrace();
+            logger.error("Error while reading user from database");
+            return null;
+        }
     }
 }
@@ -0,0 +1,20 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.premium;
+
+import xyz.xreatlabs.nexauth.api.premium.PremiumException;
+
+/**
+ * Thrown when an API did not answer in time. Reported as throttled, like before, but unlike a real rejection it does not mean our rate limit is used up.
+ */
+public class ApiTimeoutException extends PremiumException {
+
+    public ApiTimeoutException(String api) {
+        super(Issue.THROTTLED, "%s timed out".formatted(api));
+    }
+
+}
@@ -8,94 +8,677 @@ package xyz.xreatlabs.nexauth.common.premium;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import org.jetbrains.annotations.Nullable;
 import xyz.xreatlabs.nexauth.api.premium.PremiumException;
 import xyz.xreatlabs.nexauth.api.premium.PremiumProvider;
 import xyz.xreatlabs.nexauth.api.premium.PremiumUser;
 import xyz.xreatlabs.nexauth.api.util.ThrowableFunction;
 import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
+import xyz.xreatlabs.nexauth.common.util.CancellableTask;
 import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
+import xyz.xreatlabs.nexauth.common.util.TokenBucket;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.SocketTimeoutException;
-import java.net.URL;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.*;
 
 public class AuthenticPremiumProvider implements PremiumProvider {
 
-    private final Cache<String, PremiumUser> userCache;
-    private final List<ThrowableFunction<String, PremiumUser, PremiumException>> fetchers;
+    private static final long MINIMUM_HEDGE_DELAY = 50;
+    private static final long MAXIMUM_HEDGE_DELAY = 3000;
+    private static final long DEFAULT_HEDGE_DELAY = 1000;
+    /**
+     * The maximum amount of names accepted by the bulk endpoint
+     */
+    private static final int BULK_SIZE = 10;
+    /**
+     * The maximum amount of platform threads looking up users, when virtual threads are disabled
+     */
+    private static final int MAXIMUM_FETCHER_THREADS = 64;
+
+    private final Cache<String, CachedLookup> userCache;
+    /**
+     * Expired lookups, used in place of a fresh one while the APIs are failing
+     */
+    private final Cache<String, CachedLookup> expiredCache;
+    private final Set<String> refreshing;
+    private final Map<String, CompletableFuture<CachedLookup>> inFlight;
+    private final LongAdder coalescedLookups;
+    private final List<PremiumFetcher> fetchers;
     private final AuthenticNexAuth<?, ?> plugin;
+    private final ExecutorService executor;
+    private final PremiumBatcher batcher;
+    private final long rateLimitWait;
+    private final long httpTimeout;
+    private final String mojangUrl;
+    private final String mojangBulkUrl;
+    private final String sessionUrl;
+    private final String playerDBUrl;
+    private final String minetoolsUrl;
+    private final String ashconUrl;
+    private final boolean bulkLookups;
+    private final long refreshAfter;
+    private final File cacheFile;
+    private final AtomicBoolean cacheModified;
+    private CancellableTask saveTask;
 
     public AuthenticPremiumProvider(AuthenticNexAuth<?, ?> plugin) {
         this.plugin = plugin;
+
+        var configuration = plugin.getConfiguration();
+        var expireAfter = Duration.ofSeconds(Math.max(0, configuration.get(PREMIUM_CACHE_EXPIRE_AFTER)));
+        var negativeExpireAfter = Duration.ofSeconds(Math.max(0, configuration.get(PREMIUM_CACHE_NEGATIVE_EXPIRE_AFTER)));
+        var errorExpireAfter = Duration.ofSeconds(Math.max(0, configuration.get(PREMIUM_CACHE_ERROR_EXPIRE_AFTER)));
+
+        refreshAfter = TimeUnit.SECONDS.toMillis(configuration.get(PREMIUM_CACHE_REFRESH_AFTER));
+        expiredCache = Caffeine.newBuilder()
+                .maximumSize(configuration.get(PREMIUM_CACHE_MAXIMUM_SIZE))
+                .expireAfterWrite(expireAfter)
+                .build();
         userCache = Caffeine.newBuilder()
-                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .maximumSize(configuration.get(PREMIUM_CACHE_MAXIMUM_SIZE))
+                .expireAfter(Expiry.writing((String name, CachedLookup lookup) -> {
+                    var expiry = lookup.exception() != null ? errorExpireAfter : lookup.user() == null ? negativeExpireAfter : expireAfter;
+                    // Lookups loaded from the cache file are already aged
+                    var age = Math.max(0, System.currentTimeMillis() - lookup.fetchedAt());
+                    return age >= expiry.toMillis() ? Duration.ZERO : expiry.minusMillis(age);
+                }))
+                .evictionListener((String name, CachedLookup lookup, RemovalCause cause) -> {
+                    if (cause == RemovalCause.EXPIRED && lookup != null && lookup.exception() == null) expiredCache.put(name, lookup);
+                })
                 .build();
+        refreshing = ConcurrentHashMap.newKeySet();
+        inFlight = new ConcurrentHashMap<>();
+        coalescedLookups = new LongAdder();
+        cacheFile = new File(plugin.getDataFolder(), "premium-cache.txt");
+        cacheModified = new AtomicBoolean();
+
+        // Not shared with the other executors, the threads looking up users wait for these
+        if (plugin.getConfiguration().get(EXECUTOR_VIRTUAL_THREADS)) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("NexAuth Premium Fetcher #", 1).factory());
+        } else {
+            // Lookups wait for the attempts and bulk requests they started, so tasks are never queued behind them.
+            // Once all the threads are busy, the caller runs the task itself, a lookup then tries the fetchers one after another.
+            executor = new ThreadPoolExecutor(0, MAXIMUM_FETCHER_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    Thread.ofPlatform().daemon().name("NexAuth Premium Fetcher #", 1).factory(), (task, pool) -> {
+                if (pool.isShutdown()) throw new RejectedExecutionException("The premium fetchers have been shut down");
+                task.run();
+            });
+        }
+        rateLimitWait = configuration.get(PREMIUM_RATE_LIMIT_MAXIMUM_WAIT);
+        httpTimeout = Math.max(1, configuration.get(HTTP_TIMEOUT));
+
+        var period = TimeUnit.SECONDS.toMillis(configuration.get(PREMIUM_RATE_LIMIT_PERIOD));
+        var queue = Math.max(0, configuration.get(PREMIUM_RATE_LIMIT_MAXIMUM_QUEUE));
+        var mojangLimit = new TokenBucket("the Mojang API", configuration.get(PREMIUM_RATE_LIMIT_MOJANG), period, queue);
+        var playerDBLimit = new TokenBucket("PlayerDB", configuration.get(PREMIUM_RATE_LIMIT_PLAYERDB), period, queue);
+        var minetoolsLimit = new TokenBucket("Minetools", configuration.get(PREMIUM_RATE_LIMIT_MINETOOLS), period, queue);
+
+        // A bulk request costs a single token, no matter how many names it contains
+        batcher = new PremiumBatcher(BULK_SIZE, Math.max(0, configuration.get(PREMIUM_BATCHING_WINDOW)), executor, throttled(mojangLimit, limited(this::getUsersFromMojang)));
+
+        mojangUrl = baseUrl(configuration.get(PREMIUM_URLS_MOJANG));
+        mojangBulkUrl = baseUrl(configuration.get(PREMIUM_URLS_MOJANG_BULK));
+        sessionUrl = baseUrl(configuration.get(PREMIUM_URLS_SESSION));
+        playerDBUrl = baseUrl(configuration.get(PREMIUM_URLS_PLAYERDB));
+        minetoolsUrl = baseUrl(configuration.get(PREMIUM_URLS_MINETOOLS));
+        ashconUrl = baseUrl(configuration.get(PREMIUM_URLS_ASHCON));
+
+        fetchers = new ArrayList<>();
+
+        for (var id : configuration.get(PREMIUM_FETCHERS)) {
+            var fetcher = switch (id.toLowerCase()) {
+                // The batched lookups wait for the bulk request, which is limited on its own
+                case "mojang" ->
+                        new PremiumFetcher("Mojang", configuration.get(PREMIUM_BATCHING) ? this::getUserFromMojangBatched : throttled(mojangLimit, limited(this::getUserFromMojang)), mojangLimit);
+                case "playerdb" ->
+                        new PremiumFetcher("PlayerDB", throttled(playerDBLimit, limited(this::getUserFromPlayerDB)), playerDBLimit);
+                case "minetools" ->
+                        new PremiumFetcher("Minetools", throttled(minetoolsLimit, limited(this::getUserFromMinetools)), minetoolsLimit);
+                // Unreliable, see https://github.com/Electroid/mojang-api/issues/79
+                case "ashcon" -> new PremiumFetcher("Ashcon", limited(this::getUserFromAshcon), null);
+                case "local" -> {
+                    var mirror = new LocalPremiumMirror(new File(plugin.getDataFolder(), "premium-mirror.txt"), plugin.getLogger());
+                    yield new PremiumFetcher("Local", mirror::getUserForName, null);
+                }
+                default -> {
+                    plugin.getLogger().warn("Unknown premium fetcher %s, ignoring it".formatted(id));
+                    yield null;
+                }
+            };
+
+            if (fetcher != null) fetchers.add(fetcher);
+        }
+
+        if (fetchers.isEmpty()) {
+            plugin.getLogger().warn("No premium fetchers are configured, using the Mojang API");
+            fetchers.add(new PremiumFetcher("Mojang", throttled(mojangLimit, limited(this::getUserFromMojang)), mojangLimit));
+        }
+
+        // Names are only looked up in bulk, when the Mojang API is used
+        bulkLookups = fetchers.stream().anyMatch(fetcher -> fetcher.getName().equals("Mojang"));
+    }
+
+    private static String baseUrl(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * Makes the request only if the rate limit allows it, otherwise {@link RateLimitedException} is thrown, so the next fetcher is used
+     */
+    private <T, R> ThrowableFunction<T, R, PremiumException> throttled(TokenBucket bucket, ThrowableFunction<T, R, PremiumException> function) {
+        var maximumWait = getMaximumWait(bucket);
+
+        return argument -> {
+            if (!bucket.tryAcquire(maximumWait)) throw new RateLimitedException(bucket.getName());
+
+            try {
+                return function.apply(argument);
+            } catch (PremiumException e) {
+                // The API rejected us, so someone else is using the limit as well, back off until the bucket refills.
+                // A slow API does not mean the limit is used up.
+                if (e.getIssue() == PremiumException.Issue.THROTTLED && !(e instanceof ApiTimeoutException)) bucket.drain();
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Each waiting request waits one refill interval longer than the one before it.
+     * Unless configured, the wait is long enough for the whole queue to be served, but never longer than a request to the API may take.
+     */
+    private long getMaximumWait(TokenBucket bucket) {
+        if (rateLimitWait >= 0) return rateLimitWait;
+
+        return Math.min(httpTimeout, bucket.getMaximumWaiting() * bucket.getRefillInterval());
+    }
+
+    /**
+     * Limits the amount of concurrent requests made by the function
+     */
+    private <T, R> ThrowableFunction<T, R, PremiumException> limited(ThrowableFunction<T, R, PremiumException> function) {
+        return argument -> {
+            try (var ignored = plugin.getMojangBulkhead().acquire()) {
+                return function.apply(argument);
+            }
+        };
+    }
 
-        fetchers = new ArrayList<>(3);
+    public List<PremiumFetcher> getFetchers() {
+        return fetchers;
+    }
+
+    /**
+     * Loads the lookups saved by the previous run, and starts saving them periodically.
+     */
+    public void enable() {
+        if (!plugin.getConfiguration().get(PREMIUM_CACHE_PERSIST)) return;
+
+        loadCache();
+
+        var interval = TimeUnit.SECONDS.toMillis(plugin.getConfiguration().get(PREMIUM_CACHE_SAVE_INTERVAL));
+        if (interval > 0) saveTask = plugin.repeat(this::saveCache, interval, interval);
+    }
+
+    public void disable() {
+        if (saveTask != null) saveTask.cancel();
+        if (plugin.getConfiguration().get(PREMIUM_CACHE_PERSIST)) saveCache();
+        executor.shutdownNow();
+    }
+
+    private void loadCache() {
+        if (!cacheFile.exists()) return;
+
+        try (var reader = Files.newBufferedReader(cacheFile.toPath())) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                // name;fetched at;uuid;exact name;reliable, the last three are empty for names without a premium account
+                var parts = line.split(";", -1);
+                if (parts.length != 5) continue;
+
+                var user = parts[2].isEmpty() ? null : new PremiumUser(UUID.fromString(parts[2]), parts[3], Boolean.parseBoolean(parts[4]));
+
+                userCache.put(parts[0], new CachedLookup(user, null, Long.parseLong(parts[1])));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            plugin.getLogger().warn("Failed to load the premium cache, starting with an empty one: " + e.getMessage());
+            return;
+        }
+
+        // Drop the lookups which expired while we were offline
+        userCache.cleanUp();
+
+        plugin.getLogger().info("Loaded %d cached premium lookups".formatted(userCache.estimatedSize()));
+    }
+
+    private void saveCache() {
+        if (!cacheModified.getAndSet(false)) return;
+
+        var temporary = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+
+        try (var writer = Files.newBufferedWriter(temporary.toPath())) {
+            for (var entry : userCache.asMap().entrySet()) {
+                var lookup = entry.getValue();
+                if (lookup.exception() != null) continue;
+
+                var user = lookup.user();
+
+                writer.write(entry.getKey() + ";" + lookup.fetchedAt() + ";" + (user == null ? ";;" : user.uuid() + ";" + user.name() + ";" + user.reliable()));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            cacheModified.set(true);
+            plugin.getLogger().warn("Failed to save the premium cache: " + e.getMessage());
+            return;
+        }
 
-        fetchers.add(this::getUserFromMojang);
-        fetchers.add(this::getUserFromPlayerDB);
-        fetchers.add(this::getUserFromMinetools);
-        //fetchers.add(this::getUserFromAshcon); //Momentarily disabled, as it's unreliable. See https://github.com/Electroid/mojang-api/issues/79
+        try {
+            try {
+                Files.move(temporary.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            cacheModified.set(true);
+            plugin.getLogger().warn("Failed to replace the premium cache: " + e.getMessage());
+        }
     }
 
+    /**
+     * Looks up the user, using the cache when possible.
+     * Premium users cached for longer than the refresh period are still returned, while they are refreshed in the background.
+     * If the refresh fails, the cached user keeps being used until it expires.
+     * After that, it's still used if fetching it again fails.
+     */
     @Override
     public PremiumUser getUserForName(String name) throws PremiumException {
         name = name.toLowerCase();
 
-        var exceptionToThrow = new PremiumException[1];
+        var lookup = userCache.getIfPresent(name);
+
+        if (lookup == null) {
+            lookup = load(name);
+        }
+
+        if (!lookup.usable()) {
+            throw lookup.exception();
+        }
+
+        if (lookup.user() != null && System.currentTimeMillis() - lookup.fetchedAt() >= refreshAfter) {
+            refresh(name);
+        }
+
+        return lookup.user();
+    }
+
+    /**
+     * Fetches the user, unless it's already being fetched, in which case the caller waits for the result of that fetch, even if it fails.
+     * Unlike loading through the cache, a slow fetch doesn't block the lookups of other names.
+     */
+    private CachedLookup load(String name) throws PremiumException {
+        var flight = new CompletableFuture<CachedLookup>();
+        var existing = inFlight.putIfAbsent(name, flight);
+
+        if (existing != null) return await(existing);
+
+        try {
+            // The previous flight might have finished in the meantime
+            var lookup = userCache.getIfPresent(name);
+
+            if (lookup == null) {
+                lookup = fetchAndCache(name);
+            }
+
+            flight.complete(lookup);
+            return lookup;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(name, flight);
+        }
+    }
+
+    private CachedLookup await(CompletableFuture<CachedLookup> flight) throws PremiumException {
+        coalescedLookups.increment();
+
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PremiumException(PremiumException.Issue.UNDEFINED, e);
+        } catch (ExecutionException e) {
+            throw new PremiumException(PremiumException.Issue.UNDEFINED, e);
+        }
+    }
+
+    /**
+     * Fetches the user and caches the result, the caller must own the flight of the name.
+     */
+    private CachedLookup fetchAndCache(String name) {
+        CachedLookup lookup;
+
+        try {
+            lookup = new CachedLookup(fetch(name), null, System.currentTimeMillis());
+            cacheModified.set(true);
+            userCache.put(name, lookup);
+        } catch (PremiumException e) {
+            var expired = expiredCache.getIfPresent(name);
+
+            if (expired != null) {
+                plugin.getLogger().debug("Failed to look up premium user %s, using the expired lookup: %s".formatted(name, e.getMessage()));
+                // Cached briefly like a failure, so a failing API is not asked again on every join
+                lookup = new CachedLookup(expired.user(), e, System.currentTimeMillis(), true);
+                userCache.put(name, lookup);
+            } else {
+                lookup = new CachedLookup(null, e, System.currentTimeMillis());
+                // Our own rate limit may allow the request on the next join already, so only failures of the APIs are cached
+                if (!(e instanceof RateLimitedException)) userCache.put(name, lookup);
+            }
+        }
+
+        return lookup;
+    }
+
+    /**
+     * @return The amount of lookups, which waited for a lookup of the same name already in progress, instead of fetching it again
+     */
+    public long getCoalescedLookups() {
+        return coalescedLookups.sum();
+    }
+
+    public int getInFlightLookups() {
+        return inFlight.size();
+    }
+
+    private void refresh(String name) {
+        if (!refreshing.add(name)) return;
+
+        executor.execute(() -> {
+            try {
+                userCache.put(name, new CachedLookup(fetch(name), null, System.currentTimeMillis()));
+                cacheModified.set(true);
+            } catch (PremiumException e) {
+                plugin.getLogger().debug("Failed to refresh premium user %s, keeping the cached one: %s".formatted(name, e.getMessage()));
+            } finally {
+                refreshing.remove(name);
+            }
+        });
+    }
+
+    /**
+     * Looks up the uncached names using the bulk endpoint, ten names per request.
+     * Names, which could not be resolved this way, are looked up one by one.
+     * Like {@link #getUserForName(String)}, names already being looked up are not requested again, and the lookups of these names wait for this one.
+     */
+    @Override
+    public Map<String, PremiumUser> getUsersForNames(Collection<String> names) throws PremiumException {
+        if (!bulkLookups) return PremiumProvider.super.getUsersForNames(names);
+
+        var lookups = new HashMap<String, CachedLookup>();
+        var owned = new HashMap<String, CompletableFuture<CachedLookup>>();
+        var batched = new HashMap<String, CompletableFuture<PremiumUser>>();
+        var awaited = new HashMap<String, CompletableFuture<CachedLookup>>();
+
+        try {
+            for (var name : names) {
+                var lowercase = name.toLowerCase();
+                var lookup = userCache.getIfPresent(lowercase);
+
+                if (lookup != null && lookup.usable()) {
+                    lookups.put(name, lookup);
+                    continue;
+                }
+
+                var flight = new CompletableFuture<CachedLookup>();
+                var existing = inFlight.putIfAbsent(lowercase, flight);
+
+                if (existing != null) {
+                    awaited.put(name, existing);
+                } else {
+                    owned.put(name, flight);
+                    batched.put(name, batcher.lookup(lowercase));
+                }
+            }
 
-        String finalName = name;
-        var result = userCache.get(name, x -> {
-            for (int i = 0; i < fetchers.size(); i++) {
-                var fetcher = fetchers.get(i);
+            // Our own flights first, they never wait for other flights, so two bulk lookups cannot wait for each other
+            for (var entry : owned.entrySet()) {
+                var name = entry.getKey();
+                var lowercase = name.toLowerCase();
+                CachedLookup lookup;
 
                 try {
-                    return fetcher.apply(x);
-                } catch (PremiumException e) {
-                    if (i == fetchers.size() - 1) {
-                        exceptionToThrow[0] = e;
-                    } else if (e.getIssue() == PremiumException.Issue.SERVER_EXCEPTION) {
-                        plugin.getLogger().warn("Got a server exception while fetching premium user. Falling back to an alternative API. Player's information's might not be up-to-date.", e);
-                    } else if (e.getIssue() == PremiumException.Issue.THROTTLED) {
-                        plugin.getLogger().warn("Your IP has been rate limited while fetching premium user. Falling back to an alternative API. Player's information's might not be up-to-date.", e);
-                    } else {
-                        plugin.getLogger().warn("Got unexpected exception while fetching premium user. Falling back to an alternative API. Player's information's might not be up-to-date.", e);
-                    }
-                } catch (RuntimeException e) {
-                    plugin.getLogger().debug("Unexpected exception while fetching premium user " + finalName, e);
-                    if (i == fetchers.size() - 1) {
-                        exceptionToThrow[0] = new PremiumException(PremiumException.Issue.UNDEFINED, e);
-                    }
+                    lookup = new CachedLookup(batched.get(name).join(), null, System.currentTimeMillis());
+                    userCache.put(lowercase, lookup);
+                    cacheModified.set(true);
+                } catch (CompletionException e) {
+                    plugin.getLogger().debug("Failed to look up %s in bulk, looking it up alone: %s".formatted(name, e.getCause().getMessage()));
+                    lookup = fetchAndCache(lowercase);
                 }
+
+                entry.getValue().complete(lookup);
+                lookups.put(name, lookup);
+            }
+        } finally {
+            for (var entry : owned.entrySet()) {
+                var lowercase = entry.getKey().toLowerCase();
+                var flight = entry.getValue();
+
+                flight.completeExceptionally(new IllegalStateException("The bulk lookup of " + lowercase + " failed"));
+                inFlight.remove(lowercase, flight);
+            }
+        }
+
+        for (var entry : awaited.entrySet()) {
+            lookups.put(entry.getKey(), await(entry.getValue()));
+        }
+
+        var users = new HashMap<String, PremiumUser>();
+
+        for (var entry : lookups.entrySet()) {
+            var lookup = entry.getValue();
+
+            if (!lookup.usable()) throw lookup.exception();
+            if (lookup.user() != null) users.put(entry.getKey(), lookup.user());
+        }
+
+        return users;
+    }
+
+    private PremiumUser fetch(String name) throws PremiumException {
+        var ordered = getOrderedFetchers();
+
+        return plugin.getConfiguration().get(PREMIUM_HEDGING) ? fetchHedged(name, ordered) : fetchSequentially(name, ordered);
+    }
+
+    /**
+     * Fetchers which recently failed often, or are out of their rate limit, are moved to the back, otherwise the configured order is kept.
+     */
+    private List<PremiumFetcher> getOrderedFetchers() {
+        var ordered = new ArrayList<>(fetchers);
+        ordered.sort(Comparator.<PremiumFetcher>comparingLong(fetcher -> Math.round(fetcher.getErrorRate() * 10))
+                .thenComparing(PremiumFetcher::isRateLimited));
+        return ordered;
+    }
+
+    private PremiumUser fetchSequentially(String name, List<PremiumFetcher> ordered) throws PremiumException {
+        for (int i = 0; i < ordered.size(); i++) {
+            try {
+                return runFetcher(ordered.get(i), name);
+            } catch (PremiumException e) {
+                if (i == ordered.size() - 1) throw e;
+                logFallback(e);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Starts the first fetcher, and the next one each time the previous one fails, or takes longer than the hedge delay.
+     * The first authoritative answer wins. Other answers, including "not premium", are only used once all the authoritative fetchers have failed,
+     * otherwise a slow Mojang API would let an alternative API mark a premium player as cracked.
+     */
+    private PremiumUser fetchHedged(String name, List<PremiumFetcher> ordered) throws PremiumException {
+        var attempts = new LinkedBlockingQueue<Attempt>();
+        var started = 0;
+        var running = 0;
+        var authoritativeLeft = (int) ordered.stream().filter(AuthenticPremiumProvider::isAuthoritative).count();
+        Attempt fallback = null;
+        PremiumException lastException = null;
+
+        startFetcher(ordered.get(started++), name, attempts);
+        running++;
+
+        while (running > 0) {
+            Attempt attempt;
+
+            try {
+                attempt = started < ordered.size()
+                        ? attempts.poll(getHedgeDelay(ordered.get(started - 1)), TimeUnit.MILLISECONDS)
+                        : attempts.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PremiumException(PremiumException.Issue.UNDEFINED, e);
+            }
+
+            if (attempt == null) {
+                var next = ordered.get(started++);
+                plugin.getLogger().debug("%s is slow to look up %s, racing it against %s".formatted(ordered.get(started - 2).getName(), name, next.getName()));
+                startFetcher(next, name, attempts);
+                running++;
+                continue;
+            }
+
+            running--;
+            if (isAuthoritative(attempt.fetcher())) authoritativeLeft--;
+
+            if (attempt.exception() == null) {
+                var user = attempt.user();
+
+                if (isAuthoritative(attempt.fetcher()) || (user != null && user.reliable())) return user;
+                if (fallback == null) fallback = attempt;
+                if (authoritativeLeft == 0) return fallback.user();
+            } else {
+                lastException = attempt.exception();
+                if (started < ordered.size()) logFallback(lastException);
+            }
+
+            if (started < ordered.size()) {
+                startFetcher(ordered.get(started++), name, attempts);
+                running++;
+            }
+        }
+
+        if (fallback != null) return fallback.user();
+
+        throw lastException;
+    }
+
+    /**
+     * @return Whether the answers of the fetcher are final, including answers that the name is not premium
+     */
+    private static boolean isAuthoritative(PremiumFetcher fetcher) {
+        return fetcher.getName().equals("Mojang") || fetcher.getName().equals("Local");
+    }
+
+    private void startFetcher(PremiumFetcher fetcher, String name, BlockingQueue<Attempt> attempts) {
+        executor.execute(() -> {
+            try {
+                attempts.add(new Attempt(fetcher, runFetcher(fetcher, name), null));
+            } catch (PremiumException e) {
+                attempts.add(new Attempt(fetcher, null, e));
             }
-            return null;
         });
+    }
+
+    private PremiumUser runFetcher(PremiumFetcher fetcher, String name) throws PremiumException {
+        try {
+            return fetcher.fetch(name);
+        } catch (RuntimeException e) {
+            plugin.getLogger().debug("Unexpected exception while fetching premium user " + name, e);
+            throw new PremiumException(PremiumException.Issue.UNDEFINED, e);
+        }
+    }
+
+    private long getHedgeDelay(PremiumFetcher fetcher) {
+        var configured = plugin.getConfiguration().get(PREMIUM_HEDGE_DELAY);
+        if (configured >= 0) return configured;
+
+        var latency = fetcher.getLatencyPercentile(0.95);
+        if (latency < 0) return DEFAULT_HEDGE_DELAY;
 
-        if (exceptionToThrow[0] != null) {
-            throw exceptionToThrow[0];
+        return Math.max(MINIMUM_HEDGE_DELAY, Math.min(MAXIMUM_HEDGE_DELAY, latency));
+    }
+
+    private void logFallback(PremiumException e) {
+        if (e instanceof RateLimitedException) {
+            plugin.getLogger().debug(e.getMessage() + ", falling back to an alternative API");
+            return;
+        }
+        if (e instanceof ApiTimeoutException) {
+            plugin.getLogger().warn(e.getMessage() + " while fetching premium user. Falling back to an alternative API.");
+            return;
         }
+        if (e.getIssue() == PremiumException.Issue.SERVER_EXCEPTION) {
+            plugin.getLogger().warn("Got a server exception while fetching premium user. Falling back to an alternative API. Player's information's might not be up-to-date.", e);
+        } else if (e.getIssue() == PremiumException.Issue.THROTTLED) {
+            plugin.getLogger().warn("Your IP has been rate limited while fetching premium user. Falling back to an alternative API. Player's information's might not be up-to-date.", e);
+        } else {
+            plugin.getLogger().warn("Got unexpected exception while fetching premium user. Falling back to an alternative API. Player's information's might not be up-to-date.", e);
+        }
+    }
+
+    private HttpResponse<String> get(String url) throws IOException {
+        plugin.reportMainThread();
 
-        return result;
+        var http = plugin.getHttpService();
+
+        return http.send(http.newRequest(url).build(), HttpResponse.BodyHandlers.ofString());
     }
 
     private PremiumUser getUserFromAshcon(String name) throws PremiumException {
         try {
-            plugin.reportMainThread();
-            var connection = (HttpURLConnection) new URL("https://api.ashcon.app/mojang/v2/user/" + name).openConnection();
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
+            var response = get(ashconUrl + "/mojang/v2/user/" + name);
 
-            switch (connection.getResponseCode()) {
+            switch (response.statusCode()) {
                 case 200 -> {
-                    var data = AuthenticNexAuth.GSON.fromJson(new InputStreamReader(connection.getInputStream()), JsonObject.class);
+                    var data = AuthenticNexAuth.GSON.fromJson(response.body(), JsonObject.class);
 
                     var uuid = data.get("uuid");
                     var username = data.get("username").getAsString();
@@ -105,10 +688,8 @@ public class AuthenticPremiumProvider implements PremiumProvider {
                 case 404 -> {
                     return null;
                 }
-                case 429 ->
-                        throw new PremiumException(PremiumException.Issue.THROTTLED, GeneralUtil.readInput(connection.getErrorStream()));
-                default ->
-                        throw new PremiumException(PremiumException.Issue.UNDEFINED, GeneralUtil.readInput(connection.getErrorStream()));
+                case 429 -> throw new PremiumException(PremiumException.Issue.THROTTLED, response.body());
+                default -> throw new PremiumException(PremiumException.Issue.UNDEFINED, response.body());
             }
         } catch (IOException e) {
             throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, e);
@@ -117,14 +698,11 @@ public class AuthenticPremiumProvider implements PremiumProvider {
 
     private PremiumUser getUserFromPlayerDB(String name) throws PremiumException {
         try {
-            plugin.reportMainThread();
-            var connection = (HttpURLConnection) new URL("https://playerdb.co/api/player/minecraft/" + name).openConnection();
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
+            var response = get(playerDBUrl + "/api/player/minecraft/" + name);
 
-            switch (connection.getResponseCode()) {
+            switch (response.statusCode()) {
                 case 200 -> {
-                    var data = AuthenticNexAuth.GSON.fromJson(new InputStreamReader(connection.getInputStream()), JsonObject.class);
+                    var data = AuthenticNexAuth.GSON.fromJson(response.body(), JsonObject.class);
 
                     var id = data.get("data").getAsJsonObject().get("player").getAsJsonObject().get("id").getAsString();
                     var username = data.get("data").getAsJsonObject().get("player").getAsJsonObject().get("username").getAsString();
@@ -138,10 +716,8 @@ public class AuthenticPremiumProvider implements PremiumProvider {
                 case 400 -> {
                     return null;
                 }
-                case 500 ->
-                        throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, GeneralUtil.readInput(connection.getErrorStream()));
-                default ->
-                        throw new PremiumException(PremiumException.Issue.UNDEFINED, GeneralUtil.readInput(connection.getErrorStream()));
+                case 500 -> throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, response.body());
+                default -> throw new PremiumException(PremiumException.Issue.UNDEFINED, response.body());
             }
         } catch (IOException e) {
             throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, e);
@@ -150,14 +726,11 @@ public class AuthenticPremiumProvider implements PremiumProvider {
 
     private PremiumUser getUserFromMinetools(String name) throws PremiumException {
         try {
-            plugin.reportMainThread();
-            var connection = (HttpURLConnection) new URL("https://api.minetools.eu/uuid/" + name).openConnection();
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
+            var response = get(minetoolsUrl + "/uuid/" + name);
 
-            switch (connection.getResponseCode()) {
+            switch (response.statusCode()) {
                 case 200 -> {
-                    var data = AuthenticNexAuth.GSON.fromJson(new InputStreamReader(connection.getInputStream()), JsonObject.class);
+                    var data = AuthenticNexAuth.GSON.fromJson(response.body(), JsonObject.class);
 
                     var rawId = data.get("id");
                     if (rawId == null || rawId.isJsonNull()) {
@@ -183,13 +756,11 @@ public class AuthenticPremiumProvider implements PremiumProvider {
                 case 400 -> {
                     return null;
                 }
-                case 500 ->
-                        throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, GeneralUtil.readInput(connection.getErrorStream()));
-                default ->
-                        throw new PremiumException(PremiumException.Issue.UNDEFINED, GeneralUtil.readInput(connection.getErrorStream()));
+                case 500 -> throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, response.body());
+                default -> throw new PremiumException(PremiumException.Issue.UNDEFINED, response.body());
             }
-        } catch (SocketTimeoutException te) {
-            throw new PremiumException(PremiumException.Issue.THROTTLED, "Minetools API timed out");
+        } catch (HttpTimeoutException te) {
+            throw new ApiTimeoutException("Minetools API");
         } catch (IOException e) {
             throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, e);
         }
@@ -197,17 +768,13 @@ public class AuthenticPremiumProvider implements PremiumProvider {
 
     private PremiumUser getUserFromMojang(String name) throws PremiumException {
         try {
-            plugin.reportMainThread();
-            var connection = (HttpURLConnection) new URL("https://api.mojang.com/users/profiles/minecraft/" + name).openConnection();
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
+            var response = get(mojangUrl + "/users/profiles/minecraft/" + name);
 
-            return switch (connection.getResponseCode()) {
-                case 429 ->
-                        throw new PremiumException(PremiumException.Issue.THROTTLED, GeneralUtil.readInput(connection.getErrorStream()));
+            return switch (response.statusCode()) {
+                case 429 -> throw new PremiumException(PremiumException.Issue.THROTTLED, response.body());
                 case 204, 404 -> null;
                 case 200 -> {
-                    var data = AuthenticNexAuth.GSON.fromJson(new InputStreamReader(connection.getInputStream()), JsonObject.class);
+                    var data = AuthenticNexAuth.GSON.fromJson(response.body(), JsonObject.class);
 
                     var id = data.get("id").getAsString();
                     var demo = data.get("demo");
@@ -219,47 +786,119 @@ public class AuthenticPremiumProvider implements PremiumProvider {
                     );
                 }
                 case 403 -> {
-                    if ("text/html".equals(connection.getContentType())) {
-                        throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, GeneralUtil.readInput(connection.getErrorStream()));
+                    if (response.headers().firstValue("Content-Type").orElse("").startsWith("text/html")) {
+                        throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, response.body());
                     }
-                    throw new PremiumException(PremiumException.Issue.UNDEFINED, GeneralUtil.readInput(connection.getErrorStream()));
+                    throw new PremiumException(PremiumException.Issue.UNDEFINED, response.body());
                 }
-                case 500 ->
-                        throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, GeneralUtil.readInput(connection.getErrorStream()));
-                default ->
-                        throw new PremiumException(PremiumException.Issue.UNDEFINED, GeneralUtil.readInput(connection.getErrorStream()));
+                case 500 -> throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, response.body());
+                default -> throw new PremiumException(PremiumException.Issue.UNDEFINED, response.body());
             };
-        } catch (SocketTimeoutException te) {
-            throw new PremiumException(PremiumException.Issue.THROTTLED, "Mojang API timed out");
+        } catch (HttpTimeoutException te) {
+            throw new ApiTimeoutException("Mojang API");
         } catch (IOException e) {
             throw new PremiumException(PremiumException.Issue.UNDEFINED, e);
         }
     }
 
-    @Override
-    public PremiumUser getUserForUUID(UUID uuid) throws PremiumException {
+    private PremiumUser getUserFromMojangBatched(String name) throws PremiumException {
+        try {
+            return batcher.lookup(name).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PremiumException premiumException) throw premiumException;
+            throw new PremiumException(PremiumException.Issue.UNDEFINED, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PremiumException(PremiumException.Issue.UNDEFINED, e);
+        }
+    }
+
+    /**
+     * @return The premium users by their lowercase name, names without a premium account are left out
+     */
+    private Map<String, PremiumUser> getUsersFromMojang(List<String> names) throws PremiumException {
         try {
             plugin.reportMainThread();
-            var connection = (HttpURLConnection) new URL("https://sessionserver.mojang.com/session/minecraft/profile/" + uuid.toString()).openConnection();
 
-            return switch (connection.getResponseCode()) {
-                case 429 ->
-                        throw new PremiumException(PremiumException.Issue.THROTTLED, GeneralUtil.readInput(connection.getErrorStream()));
+            var http = plugin.getHttpService();
+            var request = http.newRequest(mojangBulkUrl + "/minecraft/profile/lookup/bulk/byname")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(AuthenticNexAuth.GSON.toJson(names)))
+                    .build();
+            var response = http.send(request, HttpResponse.BodyHandlers.ofString());
+
+            return switch (response.statusCode()) {
+                case 429 -> throw new PremiumException(PremiumException.Issue.THROTTLED, response.body());
+                case 200 -> {
+                    var data = AuthenticNexAuth.GSON.fromJson(response.body(), JsonArray.class);
+                    var users = new HashMap<String, PremiumUser>();
+
+                    for (var element : data) {
+                        var profile = element.getAsJsonObject();
+                        if (profile.get("demo") != null) continue;
+
+                        var name = profile.get("name").getAsString();
+
+                        users.put(name.toLowerCase(), new PremiumUser(
+                                GeneralUtil.fromUnDashedUUID(profile.get("id").getAsString()),
+                                name,
+                                true // Mojang API is always authoritative
+                        ));
+                    }
+
+                    yield users;
+                }
+                case 500 -> throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, response.body());
+                default -> throw new PremiumException(PremiumException.Issue.UNDEFINED, response.body());
+            };
+        } catch (HttpTimeoutException te) {
+            throw new ApiTimeoutException("Mojang API");
+        } catch (IOException e) {
+            throw new PremiumException(PremiumException.Issue.UNDEFINED, e);
+        }
+    }
+
+    @Override
+    public PremiumUser getUserForUUID(UUID uuid) throws PremiumException {
+        try (var ignored = plugin.getMojangBulkhead().acquire()) {
+            var response = get(sessionUrl + "/session/minecraft/profile/" + uuid.toString());
+
+            return switch (response.statusCode()) {
+                case 429 -> throw new PremiumException(PremiumException.Issue.THROTTLED, response.body());
                 case 204, 404 -> null;
                 case 200 -> {
-                    var data = AuthenticNexAuth.GSON.fromJson(new InputStreamReader(connection.getInputStream()), JsonObject.class);
+                    var data = AuthenticNexAuth.GSON.fromJson(response.body(), JsonObject.class);
 
                     var name = data.get("name").getAsString();
 
                     yield new PremiumUser(uuid, name, true); // Mojang API is always authoritative
                 }
-                case 500 ->
-                        throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, GeneralUtil.readInput(connection.getErrorStream()));
-                default ->
-                        throw new PremiumException(PremiumException.Issue.UNDEFINED, GeneralUtil.readInput(connection.getErrorStream()));
+                case 500 -> throw new PremiumException(PremiumException.Issue.SERVER_EXCEPTION, response.body());
+                default -> throw new PremiumException(PremiumException.Issue.UNDEFINED, response.body());
             };
         } catch (IOException e) {
             throw new PremiumException(PremiumException.Issue.UNDEFINED, e);
         }
     }
+
+    private record Attempt(PremiumFetcher fetcher, PremiumUser user, PremiumException exception) {
+    }
+
+    /**
+     * The result of a lookup, either a user, null for a name without a premium account, or the exception thrown
+     *
+     * @param stale Whether the fetch failed, and the user is taken from an expired lookup
+     */
+    private record CachedLookup(@Nullable PremiumUser user, @Nullable PremiumException exception, long fetchedAt, boolean stale) {
+
+        CachedLookup(@Nullable PremiumUser user, @Nullable PremiumException exception, long fetchedAt) {
+            this(user, exception, fetchedAt, false);
+        }
+
+        boolean usable() {
+            return exception == null || stale;
+        }
+
+    }
+
 }
@@ -0,0 +1,62 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.premium;
+
+import xyz.xreatlabs.nexauth.api.Logger;
+import xyz.xreatlabs.nexauth.api.premium.PremiumUser;
+import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Looks up premium users in a local file instead of an API, for servers without internet access and for load tests.
+ * <p>
+ * Each line of the file contains a name and its premium UUID separated by a semicolon, lines starting with # are ignored.
+ * Names which are not in the file don't have a premium account.
+ */
+public class LocalPremiumMirror {
+
+    private final Map<String, PremiumUser> users;
+
+    public LocalPremiumMirror(File file, Logger logger) {
+        users = new HashMap<>();
+
+        if (!file.exists()) {
+            logger.warn("The local premium mirror %s doesn't exist, nobody will be considered premium by it".formatted(file.getName()));
+            return;
+        }
+
+        try {
+            for (var line : Files.readAllLines(file.toPath())) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+
+                var parts = line.trim().split(";");
+
+                try {
+                    var uuid = parts[1].length() == 32 ? GeneralUtil.fromUnDashedUUID(parts[1]) : UUID.fromString(parts[1]);
+                    users.put(parts[0].toLowerCase(), new PremiumUser(uuid, parts[0], true));
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    logger.warn("Ignoring malformed line of the local premium mirror: " + line);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read the local premium mirror", e);
+        }
+
+        logger.info("Loaded %d users from the local premium mirror".formatted(users.size()));
+    }
+
+    public PremiumUser getUserForName(String name) {
+        return users.get(name.toLowerCase());
+    }
+
+}
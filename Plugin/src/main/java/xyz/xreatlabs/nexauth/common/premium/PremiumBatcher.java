@@ -0,0 +1,111 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.premium;
+
+import xyz.xreatlabs.nexauth.api.premium.PremiumException;
+import xyz.xreatlabs.nexauth.api.premium.PremiumUser;
+import xyz.xreatlabs.nexauth.api.util.ThrowableFunction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the names looked up within a short window, and resolves them using a single bulk request.
+ */
+public class PremiumBatcher {
+
+    private final int maximumBatchSize;
+    private final Executor executor;
+    private final Executor delayedExecutor;
+    private final ThrowableFunction<List<String>, Map<String, PremiumUser>, PremiumException> bulkFetcher;
+    private Map<String, CompletableFuture<PremiumUser>> pending;
+    private long generation;
+
+    /**
+     * @param maximumBatchSize The maximum amount of names in a single request, a full batch is sent immediately
+     * @param window           The amount of milliseconds to wait for more names, after the first one arrives
+     * @param bulkFetcher      Resolves the names, returns the premium users by their lowercase name
+     */
+    public PremiumBatcher(int maximumBatchSize, long window, Executor executor, ThrowableFunction<List<String>, Map<String, PremiumUser>, PremiumException> bulkFetcher) {
+        this.maximumBatchSize = maximumBatchSize;
+        this.executor = executor;
+        this.delayedExecutor = CompletableFuture.delayedExecutor(window, TimeUnit.MILLISECONDS, executor);
+        this.bulkFetcher = bulkFetcher;
+        this.pending = new LinkedHashMap<>();
+    }
+
+    /**
+     * @param name The lowercase name
+     * @return A future completed with the premium user, null if there is none
+     */
+    public CompletableFuture<PremiumUser> lookup(String name) {
+        CompletableFuture<PremiumUser> future;
+        Map<String, CompletableFuture<PremiumUser>> full = null;
+        long scheduledGeneration = -1;
+
+        synchronized (this) {
+            future = pending.get(name);
+            // Concurrent lookups of the same name share the request
+            if (future != null) return future;
+
+            future = new CompletableFuture<>();
+            pending.put(name, future);
+
+            if (pending.size() >= maximumBatchSize) {
+                full = pending;
+                pending = new LinkedHashMap<>();
+                generation++;
+            } else if (pending.size() == 1) {
+                scheduledGeneration = generation;
+            }
+        }
+
+        if (full != null) {
+            var batch = full;
+            executor.execute(() -> send(batch));
+        } else if (scheduledGeneration >= 0) {
+            var expected = scheduledGeneration;
+            delayedExecutor.execute(() -> flush(expected));
+        }
+
+        return future;
+    }
+
+    private void flush(long expectedGeneration) {
+        Map<String, CompletableFuture<PremiumUser>> batch;
+
+        synchronized (this) {
+            // The batch has already been sent, because it filled up
+            if (generation != expectedGeneration || pending.isEmpty()) return;
+
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            generation++;
+        }
+
+        send(batch);
+    }
+
+    private void send(Map<String, CompletableFuture<PremiumUser>> batch) {
+        try {
+            var users = bulkFetcher.apply(new ArrayList<>(batch.keySet()));
+
+            batch.forEach((name, future) -> future.complete(users.get(name)));
+        } catch (PremiumException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        } catch (RuntimeException e) {
+            var exception = new PremiumException(PremiumException.Issue.UNDEFINED, e);
+            batch.values().forEach(future -> future.completeExceptionally(exception));
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.premium;
+
+import org.jetbrains.annotations.Nullable;
+import xyz.xreatlabs.nexauth.api.premium.PremiumException;
+import xyz.xreatlabs.nexauth.api.premium.PremiumUser;
+import xyz.xreatlabs.nexauth.api.util.ThrowableFunction;
+import xyz.xreatlabs.nexauth.common.util.TokenBucket;
+
+import java.util.Arrays;
+
+/**
+ * A single API for looking up premium users, which keeps track of its recent latency and error rate.
+ */
+public class PremiumFetcher {
+
+    private static final int SAMPLES = 64;
+    private static final double ERROR_RATE_WEIGHT = 0.1;
+
+    private final String name;
+    private final ThrowableFunction<String, PremiumUser, PremiumException> function;
+    @Nullable
+    private final TokenBucket rateLimit;
+    private final long[] latencies;
+    private int latencyCount;
+    private int latencyIndex;
+    private double errorRate;
+    private long requests;
+    private long errors;
+
+    /**
+     * @param rateLimit The rate limit of the API, it must already be enforced by the function
+     */
+    public PremiumFetcher(String name, ThrowableFunction<String, PremiumUser, PremiumException> function, @Nullable TokenBucket rateLimit) {
+        this.name = name;
+        this.function = function;
+        this.rateLimit = rateLimit;
+        this.latencies = new long[SAMPLES];
+    }
+
+    public PremiumUser fetch(String username) throws PremiumException {
+        var start = System.nanoTime();
+
+        try {
+            var user = function.apply(username);
+            record(start, false);
+            return user;
+        } catch (RateLimitedException e) {
+            // No request was made, this says nothing about the API
+            throw e;
+        } catch (PremiumException | RuntimeException e) {
+            record(start, true);
+            throw e;
+        }
+    }
+
+    private synchronized void record(long start, boolean error) {
+        requests++;
+
+        if (error) {
+            errors++;
+        } else {
+            // Failures often time out, they would distort the latency of successful requests
+            latencies[latencyIndex] = (System.nanoTime() - start) / 1_000_000;
+            latencyIndex = (latencyIndex + 1) % SAMPLES;
+            latencyCount = Math.min(latencyCount + 1, SAMPLES);
+        }
+
+        errorRate += ERROR_RATE_WEIGHT * ((error ? 1 : 0) - errorRate);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Nullable
+    public TokenBucket getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * @return Whether a request can be made right now without exceeding the rate limit
+     */
+    public boolean isRateLimited() {
+        return rateLimit != null && rateLimit.getCapacity() > 0 && rateLimit.getAvailable() == 0;
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 1
+     * @return The latency of the recent successful requests in milliseconds, or -1 if there are none
+     */
+    public synchronized long getLatencyPercentile(double percentile) {
+        if (latencyCount == 0) return -1;
+
+        var sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+
+        return sorted[(int) Math.max(0, Math.min(latencyCount - 1, Math.ceil(percentile * latencyCount) - 1))];
+    }
+
+    /**
+     * @return The exponentially weighted share of recent requests which failed, between 0 and 1
+     */
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+}
@@ -0,0 +1,20 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.premium;
+
+import xyz.xreatlabs.nexauth.api.premium.PremiumException;
+
+/**
+ * Thrown when a request to an API was not made at all, because it would exceed the rate limit of the API.
+ */
+public class RateLimitedException extends PremiumException {
+
+    public RateLimitedException(String api) {
+        super(Issue.THROTTLED, "Rate limit of %s reached".formatted(api));
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.util;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the amount of concurrent calls to a single downstream service (database, Mojang API, SMTP server),
+ * so a slow service cannot occupy all the threads needed by the others.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int limit;
+    private final Semaphore semaphore;
+
+    /**
+     * @param limit The maximum amount of concurrent calls, zero or less for no limit
+     */
+    public Bulkhead(String name, int limit) {
+        this.name = name;
+        this.limit = limit;
+        this.semaphore = limit > 0 ? new Semaphore(limit, true) : null;
+    }
+
+    /**
+     * Waits until a call to the service is allowed.
+     *
+     * @return The permit, which must be closed once the call finishes
+     */
+    public Permit acquire() {
+        if (semaphore == null) return () -> {
+        };
+
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        }
+
+        return semaphore::release;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return The amount of calls in progress
+     */
+    public int getActive() {
+        return semaphore == null ? 0 : limit - semaphore.availablePermits();
+    }
+
+    /**
+     * @return The approximate amount of threads waiting for a permit
+     */
+    public int getWaiting() {
+        return semaphore == null ? 0 : semaphore.getQueueLength();
+    }
+
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+}
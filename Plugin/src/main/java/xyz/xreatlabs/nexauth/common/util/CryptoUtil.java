@@ -79,6 +79,23 @@ public class CryptoUtil {
                 .build());
     }
 
+    /**
+     * Measures the operation twice and returns the faster run, the first run is usually slowed down by class loading and the JIT.
+     *
+     * @return The duration of the faster run in milliseconds
+     */
+    public static long measureMillis(Runnable operation) {
+        var fastest = Long.MAX_VALUE;
+
+        for (int i = 0; i < 2; i++) {
+            var start = System.nanoTime();
+            operation.run();
+            fastest = Math.min(fastest, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        return fastest;
+    }
+
     public record Argon2IDHashedPassword(byte[] hash, Argon2Parameters parameters) {
     }
 
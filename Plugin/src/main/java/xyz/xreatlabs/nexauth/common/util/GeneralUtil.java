@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 
 import static xyz.xreatlabs.nexauth.common.config.ConfigurationKeys.DATABASE_TYPE;
@@ -141,8 +142,12 @@ public class GeneralUtil {
     }
 
     public static CompletionStage<Void> runAsync(Runnable runnable) {
+        return runAsync(AuthenticNexAuth.EXECUTOR, runnable);
+    }
+
+    public static CompletionStage<Void> runAsync(Executor executor, Runnable runnable) {
         var future = new CompletableFuture<Void>();
-        AuthenticNexAuth.EXECUTOR.submit(() -> {
+        executor.execute(() -> {
             try {
                 runnable.run();
                 future.complete(null);
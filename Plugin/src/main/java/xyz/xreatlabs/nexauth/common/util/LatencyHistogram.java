@@ -0,0 +1,70 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in fixed buckets, cheap enough to record every operation.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The upper bounds of the buckets in milliseconds, the last bucket has no bound
+     */
+    private static final long[] BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    private final LongAdder[] buckets;
+    private final LongAdder count;
+    private final LongAdder total;
+
+    public LatencyHistogram() {
+        buckets = new LongAdder[BOUNDS.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+        count = new LongAdder();
+        total = new LongAdder();
+    }
+
+    public void record(long millis) {
+        var index = 0;
+        while (index < BOUNDS.length && millis > BOUNDS[index]) index++;
+
+        buckets[index].increment();
+        count.increment();
+        total.add(millis);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return The mean duration in milliseconds, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        var count = this.count.sum();
+        return count == 0 ? 0 : total.sum() / (double) count;
+    }
+
+    /**
+     * @return The counts by the upper bound of their bucket, like "<=25ms"
+     */
+    public Map<String, Long> getBuckets() {
+        var result = new LinkedHashMap<String, Long>();
+
+        for (int i = 0; i < buckets.length; i++) {
+            result.put(i < BOUNDS.length ? "<=" + BOUNDS[i] + "ms" : ">" + BOUNDS[BOUNDS.length - 1] + "ms", buckets[i].sum());
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.common.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the requests to a rate limited service under its limit, instead of waiting for the service to reject them.
+ * <p>
+ * The bucket holds up to {@code capacity} tokens and is refilled evenly, so that {@code capacity} tokens are added per period.
+ * A caller which finds the bucket empty may reserve a future token and wait for it, as long as the wait is short and not too many callers are waiting already.
+ */
+public class TokenBucket {
+
+    private final String name;
+    private final long capacity;
+    private final double tokensPerNano;
+    private final int maximumWaiting;
+    private double tokens;
+    private long lastRefill;
+    private int waiting;
+    private long rejected;
+
+    /**
+     * @param capacity       The maximum amount of requests within the period, zero or less for no limit
+     * @param period         The period in milliseconds
+     * @param maximumWaiting The maximum amount of callers waiting for a token
+     */
+    public TokenBucket(String name, long capacity, long period, int maximumWaiting) {
+        this.name = name;
+        this.capacity = capacity;
+        this.tokensPerNano = capacity / (double) TimeUnit.MILLISECONDS.toNanos(Math.max(1, period));
+        this.maximumWaiting = maximumWaiting;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a token, waiting for it if it becomes available in time.
+     *
+     * @param maximumWait The maximum amount of milliseconds to wait
+     * @return Whether the token was taken, the request must not be made otherwise
+     */
+    public boolean tryAcquire(long maximumWait) {
+        if (capacity <= 0) return true;
+
+        long wait;
+
+        synchronized (this) {
+            refill();
+
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+
+            // Tokens below zero are reserved by the callers already waiting
+            wait = (long) Math.ceil((1 - tokens) / tokensPerNano);
+
+            if (wait > TimeUnit.MILLISECONDS.toNanos(maximumWait) || waiting >= maximumWaiting) {
+                rejected++;
+                return false;
+            }
+
+            tokens--;
+            waiting++;
+        }
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        } finally {
+            synchronized (this) {
+                waiting--;
+            }
+        }
+    }
+
+    /**
+     * Empties the bucket, used when the service rejects a request even though we were under the limit.
+     */
+    public synchronized void drain() {
+        refill();
+        tokens = Math.min(tokens, 0);
+    }
+
+    private void refill() {
+        var now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public int getMaximumWaiting() {
+        return maximumWaiting;
+    }
+
+    /**
+     * @return The amount of milliseconds it takes to refill a single token, which is how much longer each caller in the queue waits than the one before it
+     */
+    public long getRefillInterval() {
+        return capacity <= 0 ? 0 : (long) Math.ceil(1 / tokensPerNano / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * @return The amount of tokens which can be taken without waiting
+     */
+    public synchronized long getAvailable() {
+        if (capacity <= 0) return 0;
+
+        refill();
+        return Math.max(0, (long) tokens);
+    }
+
+    public synchronized int getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * @return The amount of requests, which were not made, because there was no token available in time
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+}
@@ -32,23 +32,27 @@ import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.spigotmc.event.player.PlayerSpawnLocationEvent;
 import xyz.xreatlabs.nexauth.api.database.User;
-import xyz.xreatlabs.nexauth.common.AuthenticNexAuth;
 import xyz.xreatlabs.nexauth.common.config.ConfigurationKeys;
 import xyz.xreatlabs.nexauth.common.config.MessageKeys;
 import xyz.xreatlabs.nexauth.common.listener.AuthenticListeners;
 import xyz.xreatlabs.nexauth.common.util.GeneralUtil;
 import xyz.xreatlabs.nexauth.paper.protocol.ClientPublicKey;
 import xyz.xreatlabs.nexauth.paper.protocol.EncryptionUtil;
+import xyz.xreatlabs.nexauth.paper.protocol.KeyDecryptor;
 import xyz.xreatlabs.nexauth.paper.protocol.ProtocolUtil;
 
-import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.net.*;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import javax.crypto.*;
 
@@ -58,8 +62,8 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
 
     private static final String ENCRYPTION_CLASS_NAME = "MinecraftEncryption";
     private static final Class<?> ENCRYPTION_CLASS;
-    private static Method encryptMethod;
-    private static Method cipherMethod;
+    private static volatile MethodHandle encryptHandle;
+    private static MethodHandle cipherHandle;
 
     static {
         try {
@@ -70,6 +74,7 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
     }
 
     private final KeyPair keyPair = EncryptionUtil.generateKeyPair();
+    private final KeyDecryptor decryptor = new KeyDecryptor(keyPair.getPrivate());
     private final Random random = new SecureRandom();
     private final Cache<String, EncryptionData> encryptionDataCache = Caffeine.newBuilder()
             .expireAfterWrite(2, TimeUnit.MINUTES)
@@ -103,7 +108,7 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
 
     @EventHandler
     public void onQuit(PlayerQuitEvent event) {
-        GeneralUtil.runAsync(() -> onPlayerDisconnect(event.getPlayer()));
+        GeneralUtil.runAsync(plugin.getExecutor(), () -> onPlayerDisconnect(event.getPlayer()));
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
@@ -280,15 +285,14 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
 
             if (!verifyNonce(packet, data.publicKey(), expectedToken)) {
                 kickPlayer("Invalid nonce", user);
+                return;
             }
 
             //Verify session
-            var privateKey = keyPair.getPrivate();
-
             SecretKey loginKey;
 
             try {
-                loginKey = EncryptionUtil.decryptSharedKey(privateKey, sharedSecret);
+                loginKey = EncryptionUtil.decryptSharedKey(decryptor, sharedSecret);
             } catch (GeneralSecurityException securityEx) {
                 kickPlayer("Cannot decrypt shared secret", user);
                 return;
@@ -306,19 +310,23 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
             var serverId = EncryptionUtil.getServerIdHashString("", loginKey, keyPair.getPublic());
             var username = data.username();
             var address = user.getAddress();
-
-            try {
-                if (hasJoined(username, serverId, address.getAddress())) {
-                    receiveFakeStartPacket(username, data.publicKey(), event.getChannel(), data.uuid());
+            // The event is cleaned up once this method returns, the verification finishes later
+            var channel = event.getChannel();
+
+            hasJoined(username, serverId, address.getAddress()).whenComplete((joined, throwable) -> {
+                if (throwable != null) {
+                    if (throwable instanceof HttpTimeoutException || throwable.getCause() instanceof HttpTimeoutException) {
+                        plugin.getLogger().warn("Session verification timed out for " + username);
+                    } else {
+                        plugin.getLogger().debug("Session verification failed for " + username, throwable);
+                    }
+                    kickPlayer("Cannot verify session", user);
+                } else if (joined) {
+                    receiveFakeStartPacket(username, data.publicKey(), channel, data.uuid());
                 } else {
                     kickPlayer("Invalid session", user);
                 }
-            } catch (IOException e) {
-                if (e instanceof SocketTimeoutException) {
-                    plugin.getLogger().warn("Session verification timed out (5 seconds) for " + username);
-                }
-                kickPlayer("Cannot verify session", user);
-            }
+            });
         }
     }
 
@@ -327,7 +335,7 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
 
         var copy = event.clone();
 
-        AuthenticNexAuth.EXECUTOR.execute(() -> {
+        plugin.getExecutor().execute(() -> {
             try {
                 asyncPacketReceive(copy);
             } finally {
@@ -353,7 +361,10 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
         PacketEvents.getAPI().getProtocolManager().receivePacketSilently(channel, startPacket);
     }
 
-    public boolean hasJoined(String username, String serverHash, InetAddress hostIp) throws IOException {
+    /**
+     * Asks the session server, whether the player has joined, without blocking a thread while waiting for the response.
+     */
+    public CompletableFuture<Boolean> hasJoined(String username, String serverHash, InetAddress hostIp) {
         String url;
         if (hostIp instanceof Inet6Address || plugin.getConfiguration().get(ConfigurationKeys.ALLOW_PROXY_CONNECTIONS)) {
             url = String.format("https://sessionserver.mojang.com/session/minecraft/hasJoined?username=%s&serverId=%s", username, serverHash);
@@ -362,56 +373,37 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
             url = String.format("https://sessionserver.mojang.com/session/minecraft/hasJoined?username=%s&serverId=%s&ip=%s", username, serverHash, encodedIP);
         }
 
-        var conn = (HttpURLConnection) new URL(url).openConnection();
-        conn.setConnectTimeout(5000);
-        conn.setReadTimeout(5000);
-        conn.connect();
-        int responseCode = conn.getResponseCode();
-        conn.disconnect();
-        return responseCode != 204;
+        var http = plugin.getHttpService();
+
+        return http.sendAsync(http.newRequest(url).build(), HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() != 204);
     }
 
     /**
      * @author games647 and FastLogin contributors, kyngs
      */
     private boolean enableEncryption(SecretKey loginKey, com.github.retrooper.packetevents.protocol.player.User user, Object channel) throws IllegalArgumentException {
-        // Initialize method reflections
-        if (encryptMethod == null) {
-            Class<?> networkManagerClass = SpigotReflectionUtil.getNetworkManagers().get(0).getClass();
-
-            // Try to get the old (pre MC 1.16.4) encryption method
-            encryptMethod = Reflection.getMethod(networkManagerClass, "setupEncryption", SecretKey.class);
-
-            if (encryptMethod == null) {
-                // Try to get the new encryption method
-                encryptMethod = Reflection.getMethod(networkManagerClass, "setEncryptionKey", SecretKey.class);
-            }
-
-            if (encryptMethod == null) {
-                // Get the 1.16.4-1.21.0 encryption method
-                encryptMethod = Reflection.getMethod(networkManagerClass, "setEncryptionKey", Cipher.class, Cipher.class);
-
-                // Get the needed Cipher helper method (used to generate ciphers from login key)
-                cipherMethod = Reflection.getMethod(ENCRYPTION_CLASS, "a", int.class, Key.class);
+        try {
+            // Initialize method handles, they are resolved only once
+            if (encryptHandle == null) {
+                resolveEncryptionHandles();
             }
-        }
 
-        try {
             Object networkManager = ProtocolUtil.findNetworkManager(channel);
 
-            // If cipherMethod is null - use old encryption (pre MC 1.16.4), otherwise use the new cipher one
-            if (cipherMethod == null) {
+            // If cipherHandle is null - use old encryption (pre MC 1.16.4), otherwise use the new cipher one
+            if (cipherHandle == null) {
                 // Encrypt/decrypt packet flow, this behaviour is expected by the client
-                encryptMethod.invoke(networkManager, loginKey);
+                encryptHandle.invoke(networkManager, loginKey);
             } else {
                 // Create ciphers from login key
-                Object decryptionCipher = cipherMethod.invoke(null, Cipher.DECRYPT_MODE, loginKey);
-                Object encryptionCipher = cipherMethod.invoke(null, Cipher.ENCRYPT_MODE, loginKey);
+                Object decryptionCipher = cipherHandle.invoke(Cipher.DECRYPT_MODE, (Key) loginKey);
+                Object encryptionCipher = cipherHandle.invoke(Cipher.ENCRYPT_MODE, (Key) loginKey);
 
                 // Encrypt/decrypt packet flow, this behaviour is expected by the client
-                encryptMethod.invoke(networkManager, decryptionCipher, encryptionCipher);
+                encryptHandle.invoke(networkManager, decryptionCipher, encryptionCipher);
             }
-        } catch (Exception ex) {
+        } catch (Throwable ex) {
             kickPlayer("Couldn't enable encryption", user);
             ex.printStackTrace();
             return false;
@@ -420,6 +412,47 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
         return true;
     }
 
+    /**
+     * @author games647 and FastLogin contributors, kyngs
+     */
+    private static synchronized void resolveEncryptionHandles() throws IllegalAccessException {
+        if (encryptHandle != null) return;
+
+        Class<?> networkManagerClass = SpigotReflectionUtil.getNetworkManagers().get(0).getClass();
+
+        // Try to get the old (pre MC 1.16.4) encryption method
+        Method encryptMethod = Reflection.getMethod(networkManagerClass, "setupEncryption", SecretKey.class);
+        Method cipherMethod = null;
+
+        if (encryptMethod == null) {
+            // Try to get the new encryption method
+            encryptMethod = Reflection.getMethod(networkManagerClass, "setEncryptionKey", SecretKey.class);
+        }
+
+        if (encryptMethod == null) {
+            // Get the 1.16.4-1.21.0 encryption method
+            encryptMethod = Reflection.getMethod(networkManagerClass, "setEncryptionKey", Cipher.class, Cipher.class);
+
+            // Get the needed Cipher helper method (used to generate ciphers from login key)
+            cipherMethod = Reflection.getMethod(ENCRYPTION_CLASS, "a", int.class, Key.class);
+        }
+
+        if (encryptMethod == null) {
+            throw new IllegalStateException("Cannot find the encryption method of the network manager");
+        }
+
+        var lookup = MethodHandles.lookup();
+
+        encryptMethod.setAccessible(true);
+        if (cipherMethod != null) {
+            cipherMethod.setAccessible(true);
+            cipherHandle = lookup.unreflect(cipherMethod);
+        }
+
+        // Written last, the other threads only read the cipher handle after seeing this one
+        encryptHandle = lookup.unreflect(encryptMethod);
+    }
+
     private void kickPlayer(String reason, com.github.retrooper.packetevents.protocol.player.User player) {
         kickPlayer(Component.text(reason), player);
     }
@@ -445,7 +478,7 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
             if (getServerVersion().isNewerThanOrEquals(ServerVersion.V_1_19)
                 && !getServerVersion().isNewerThanOrEquals(ServerVersion.V_1_19_3)) {
                 if (clientPublicKey == null) {
-                    return EncryptionUtil.verifyNonce(expectedToken, keyPair.getPrivate(), packet.getEncryptedVerifyToken().get());
+                    return EncryptionUtil.verifyNonce(expectedToken, decryptor, packet.getEncryptedVerifyToken().get());
                 } else {
                     PublicKey publicKey = clientPublicKey.key();
                     var optSignature = packet.getSaltSignature();
@@ -458,10 +491,9 @@ public class PaperListeners extends AuthenticListeners<PaperNexAuth, Player, Wor
                 }
             } else {
                 byte[] nonce = packet.getEncryptedVerifyToken().get();
-                return EncryptionUtil.verifyNonce(expectedToken, keyPair.getPrivate(), nonce);
+                return EncryptionUtil.verifyNonce(expectedToken, decryptor, nonce);
             }
-        } catch (NoSuchAlgorithmException | InvalidKeyException | SignatureException | NoSuchPaddingException
-                 | IllegalBlockSizeException | BadPaddingException signatureEx) {
+        } catch (GeneralSecurityException signatureEx) {
             return false;
         }
     }
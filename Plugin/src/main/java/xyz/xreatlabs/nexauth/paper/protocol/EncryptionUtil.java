@@ -10,8 +10,6 @@ import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.io.Resources;
 import com.google.common.primitives.Longs;
-import xyz.xreatlabs.nexauth.paper.PaperBootstrap;
-
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
@@ -20,7 +18,6 @@ import java.security.*;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 import java.time.Instant;
-import java.util.Arrays;
 import java.util.Base64;
 import java.util.Random;
 import java.util.UUID;
@@ -106,14 +103,12 @@ public final class EncryptionUtil {
     /**
      * Decrypts the content and extracts the key spec.
      *
-     * @param privateKey private server key
-     * @param sharedKey  the encrypted shared key
+     * @param decryptor decryptor of the private server key
+     * @param sharedKey the encrypted shared key
      * @return shared secret key
      */
-    public static SecretKey decryptSharedKey(PrivateKey privateKey, byte[] sharedKey)
-            throws NoSuchPaddingException, IllegalBlockSizeException, NoSuchAlgorithmException,
-            BadPaddingException, InvalidKeyException {
-        return new SecretKeySpec(decrypt(privateKey, sharedKey), "AES");
+    public static SecretKey decryptSharedKey(KeyDecryptor decryptor, byte[] sharedKey) throws GeneralSecurityException {
+        return new SecretKeySpec(decryptor.decrypt(sharedKey), "AES");
     }
 
     public static boolean verifyClientKey(ClientPublicKey clientKey, Instant verifyTimestamp, UUID premiumId)
@@ -146,11 +141,10 @@ public final class EncryptionUtil {
                 .array();
     }
 
-    public static boolean verifyNonce(byte[] expected, PrivateKey decryptionKey, byte[] encryptedNonce)
-            throws NoSuchPaddingException, IllegalBlockSizeException, NoSuchAlgorithmException,
-            BadPaddingException, InvalidKeyException {
-        byte[] decryptedNonce = decrypt(decryptionKey, encryptedNonce);
-        return Arrays.equals(expected, decryptedNonce);
+    public static boolean verifyNonce(byte[] expected, KeyDecryptor decryptor, byte[] encryptedNonce)
+            throws GeneralSecurityException {
+        byte[] decryptedNonce = decryptor.decrypt(encryptedNonce);
+        return MessageDigest.isEqual(expected, decryptedNonce);
     }
 
     public static boolean verifySignedNonce(byte[] nonce, PublicKey clientKey, long signatureSalt, byte[] signature)
@@ -166,21 +160,13 @@ public final class EncryptionUtil {
 
     private static PublicKey loadMojangSessionKey()
             throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
-        var keyUrl = PaperBootstrap.class.getClassLoader().getResource("yggdrasil_session_pubkey.der");
+        var keyUrl = EncryptionUtil.class.getClassLoader().getResource("yggdrasil_session_pubkey.der");
         var keyData = Resources.toByteArray(keyUrl);
         var keySpec = new X509EncodedKeySpec(keyData);
 
         return KeyFactory.getInstance("RSA").generatePublic(keySpec);
     }
 
-    private static byte[] decrypt(PrivateKey key, byte[] data)
-            throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException,
-            IllegalBlockSizeException, BadPaddingException {
-        Cipher cipher = Cipher.getInstance(key.getAlgorithm());
-        cipher.init(Cipher.DECRYPT_MODE, key);
-        return cipher.doFinal(data);
-    }
-
     private static byte[] getServerIdHash(String sessionId, PublicKey publicKey, SecretKey sharedSecret) {
         @SuppressWarnings("deprecation")
         Hasher hasher = Hashing.sha1().newHasher();
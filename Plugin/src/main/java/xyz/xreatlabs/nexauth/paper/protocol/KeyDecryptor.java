@@ -0,0 +1,50 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.xreatlabs.nexauth.paper.protocol;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.crypto.Cipher;
+
+/**
+ * Decrypts data using a single private key, reusing ciphers which are already initialized with the key.
+ * <p>
+ * A cipher returns to its initialized state after each decryption, so looking up the provider and initializing the cipher is only done once per concurrent login.
+ * The ciphers are pooled instead of kept per thread, as the logins might be handled by virtual threads.
+ */
+public class KeyDecryptor {
+
+    private final PrivateKey key;
+    private final Queue<Cipher> ciphers;
+
+    public KeyDecryptor(PrivateKey key) {
+        this.key = key;
+        this.ciphers = new ConcurrentLinkedQueue<>();
+    }
+
+    public byte[] decrypt(byte[] data) throws GeneralSecurityException {
+        var cipher = ciphers.poll();
+
+        if (cipher == null) {
+            cipher = Cipher.getInstance(key.getAlgorithm());
+            cipher.init(Cipher.DECRYPT_MODE, key);
+        }
+
+        // A cipher which failed is not returned, its state is unknown
+        var result = cipher.doFinal(data);
+        ciphers.offer(cipher);
+
+        return result;
+    }
+
+    public PrivateKey getKey() {
+        return key;
+    }
+
+}
@@ -12,27 +12,76 @@ import com.github.retrooper.packetevents.util.reflection.ReflectionObject;
 import io.github.retrooper.packetevents.util.SpigotReflectionUtil;
 import io.netty.channel.Channel;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
 import static io.github.retrooper.packetevents.util.SpigotReflectionUtil.CHANNEL_CLASS;
 import static io.github.retrooper.packetevents.util.SpigotReflectionUtil.NETWORK_MANAGER_CLASS;
 
 public class ProtocolUtil {
+    private static final MethodHandle NO_GETTER = MethodHandles.constant(Object.class, null);
+    private static volatile MethodHandle channelGetter;
+
     public static ServerVersion getServerVersion() {
         return PacketEvents.getAPI().getServerManager().getVersion();
     }
 
     public static Channel getChannel(Object networkManager) {
-        ReflectionObject wrapper = new ReflectionObject(networkManager, NETWORK_MANAGER_CLASS);
-        return (Channel) wrapper.readObject(0, CHANNEL_CLASS);
+        var getter = getChannelGetter();
+
+        if (getter == null) {
+            ReflectionObject wrapper = new ReflectionObject(networkManager, NETWORK_MANAGER_CLASS);
+            return (Channel) wrapper.readObject(0, CHANNEL_CLASS);
+        }
+
+        try {
+            return (Channel) getter.invoke(networkManager);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to read the channel of a network manager", e);
+        }
     }
 
     public static Object findNetworkManager(Object channel) {
         var managers = SpigotReflectionUtil.getNetworkManagers();
+        var address = ((Channel) channel).remoteAddress();
         for (Object manager : managers) {
-            var managerChannel = (Channel) getChannel(manager);
-            if (managerChannel.remoteAddress().equals(((Channel) channel).remoteAddress())) {
+            var managerChannel = getChannel(manager);
+            if (managerChannel == channel || managerChannel.remoteAddress().equals(address)) {
                 return manager;
             }
         }
         return null;
     }
+
+    /**
+     * The channel is read for every connection on every login, so the field is resolved only once.
+     *
+     * @return The getter of the channel field of the network manager, or null if it could not be found
+     */
+    private static MethodHandle getChannelGetter() {
+        if (channelGetter == null) {
+            synchronized (ProtocolUtil.class) {
+                if (channelGetter == null) {
+                    channelGetter = resolveChannelGetter();
+                }
+            }
+        }
+        return channelGetter == NO_GETTER ? null : channelGetter;
+    }
+
+    private static MethodHandle resolveChannelGetter() {
+        for (Field field : NETWORK_MANAGER_CLASS.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || !CHANNEL_CLASS.isAssignableFrom(field.getType())) continue;
+
+            try {
+                field.setAccessible(true);
+                return MethodHandles.lookup().unreflectGetter(field);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                break;
+            }
+        }
+        return NO_GETTER;
+    }
 }